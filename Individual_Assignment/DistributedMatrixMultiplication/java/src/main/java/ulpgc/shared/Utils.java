@@ -36,7 +36,7 @@ public class Utils {
     }
 
     public static class Config {
-        public List<String> modes = List.of("basic", "parallel", "spark-rows", "spark-blocks");
+        public List<String> modes = List.of("basic", "parallel", "spark-rows", "spark-blocks", "spark-summa");
 
         public List<Case> cases = List.of(
                 new Case(512, 512, 512),
@@ -52,8 +52,19 @@ public class Utils {
         public String sparkAppName = "DMM-Java";
         public String sparkLocalDir = Path.of("./spark_tmp").toAbsolutePath().toString();
         public int sparkPartitions = 8;
+        // "java" or "kryo"; kryo registers hand-written serializers for the block classes.
+        // Defaults to java so spark-rows/spark-blocks keep measuring what the baseline did.
+        public String sparkSerializer = "java";
+        // kryo only: store float payloads as LZ4-compressed byte planes.
+        public boolean sparkCompressFloats = false;
 
         public int blockSize = 128;
+        // spark-blocks: accumulate partial products into mutable C blocks (combineByKey) instead of
+        // allocating one block per product and per reduction step.
+        public boolean sparkInPlaceAccumulation = true;
+
+        // Spark runners: also write each run's per-stage/per-task timeline to outputDir.
+        public boolean saveStageTimeline = false;
 
         public long minFreeDiskBytes = 6_000_000_000L;
         public boolean cleanupSparkLocalDir = true;
@@ -95,6 +106,24 @@ public class Utils {
         return out;
     }
 
+    public static Path saveTimeline(String outputDir, String mode, Case c, List<Map<String, Object>> stages)
+            throws Exception {
+        ensureDir(Path.of(outputDir));
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("created_at", LocalDateTime.now().toString());
+        payload.put("mode", mode);
+        payload.put("case", c);
+        payload.put("stages", stages);
+
+        String ts = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS"));
+        Path out = Path.of(outputDir).resolve(
+                "dmm_timeline_" + mode + "_" + c.m() + "x" + c.n() + "x" + c.p() + "_" + ts + ".json");
+        mapper.writeValue(new File(out.toString()), payload);
+        return out;
+    }
+
     public static float[] randMatrixRowMajor(int rows, int cols, long seed) {
         Random r = new Random(seed);
         float[] out = new float[rows * cols];
@@ -128,6 +157,35 @@ public class Utils {
         return C;
     }
 
+    private static final ThreadLocal<double[]> ROW_ACC = ThreadLocal.withInitial(() -> new double[0]);
+
+    // C += A * B in place. i-k-j order over a per-thread double row, so each output element is
+    // accumulated in double like blockMul and rounded to float once per call.
+    public static void blockMulAdd(float[] Ablk, float[] Bblk, float[] C, int bs) {
+        double[] acc = ROW_ACC.get();
+        if (acc.length < bs) {
+            acc = new double[bs];
+            ROW_ACC.set(acc);
+        }
+        for (int i = 0; i < bs; i++) {
+            int aRow = i * bs;
+            int cRow = i * bs;
+            for (int j = 0; j < bs; j++) acc[j] = C[cRow + j];
+            for (int k = 0; k < bs; k++) {
+                double a = Ablk[aRow + k];
+                int bRow = k * bs;
+                for (int j = 0; j < bs; j++) acc[j] += a * Bblk[bRow + j];
+            }
+            for (int j = 0; j < bs; j++) C[cRow + j] = (float) acc[j];
+        }
+    }
+
+    // x += y in place; returns x so it can be used as a Spark merge function.
+    public static float[] blockAddInPlace(float[] x, float[] y) {
+        for (int i = 0; i < x.length; i++) x[i] += y[i];
+        return x;
+    }
+
     public static float[] blockAdd(float[] x, float[] y) {
         float[] out = new float[x.length];
         for (int i = 0; i < x.length; i++) out[i] = x[i] + y[i];
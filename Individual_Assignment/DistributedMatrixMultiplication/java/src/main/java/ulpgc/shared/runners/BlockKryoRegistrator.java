@@ -0,0 +1,216 @@
+package ulpgc.shared.runners;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.apache.spark.SparkConf;
+import org.apache.spark.serializer.KryoRegistrator;
+import ulpgc.shared.Utils;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kryo registrations for the block runners. Block, GridBlock and float[] get hand-written
+ * serializers: varint headers and raw float payloads instead of Java serialization's class
+ * descriptors. The Compressed variant stores each float[] as four byte planes (all sign/exponent
+ * bytes first, then the mantissa bytes) and LZ4-compresses them, which lets LZ4 find the
+ * repetition in the exponent plane; Spark's shuffle compression is then disabled (see
+ * configure). Payload counters are static, so they only see the work done in this JVM; stats()
+ * reports them only under a local master, where the executors share the driver's JVM.
+ */
+public class BlockKryoRegistrator implements KryoRegistrator {
+    private static final AtomicLong rawBytes = new AtomicLong(0);
+    private static final AtomicLong serializedBytes = new AtomicLong(0);
+    private static final AtomicLong serializeNanos = new AtomicLong(0);
+    private static final AtomicLong deserializeNanos = new AtomicLong(0);
+
+    private final boolean compress;
+
+    public BlockKryoRegistrator() {
+        this(false);
+    }
+
+    protected BlockKryoRegistrator(boolean compress) {
+        this.compress = compress;
+    }
+
+    public static class Compressed extends BlockKryoRegistrator {
+        public Compressed() {
+            super(true);
+        }
+    }
+
+    /*
+     * Sets spark.serializer and the registrator according to cfg.sparkSerializer and
+     * cfg.sparkCompressFloats. With compressed floats Spark's own LZ4 stream compression of
+     * shuffle output is switched off, so the payload is not compressed twice.
+     */
+    public static SparkConf configure(SparkConf conf, Utils.Config cfg) {
+        if ("kryo".equals(cfg.sparkSerializer)) {
+            conf.set("spark.serializer", "org.apache.spark.serializer.KryoSerializer")
+                    .set("spark.kryo.registrator",
+                            (cfg.sparkCompressFloats ? Compressed.class : BlockKryoRegistrator.class).getName());
+            if (cfg.sparkCompressFloats) {
+                conf.set("spark.shuffle.compress", "false");
+            }
+        } else if (!"java".equals(cfg.sparkSerializer)) {
+            throw new IllegalArgumentException("Unknown sparkSerializer: " + cfg.sparkSerializer);
+        }
+        return conf;
+    }
+
+    public static void resetStats() {
+        rawBytes.set(0);
+        serializedBytes.set(0);
+        serializeNanos.set(0);
+        deserializeNanos.set(0);
+    }
+
+    public static Map<String, Object> stats(Utils.Config cfg) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("serializer", cfg.sparkSerializer);
+        // Java serialization cannot be hooked per object; that mode only has the listener's
+        // shuffle bytes and shuffleWriteTimeMs.
+        if ("kryo".equals(cfg.sparkSerializer)) {
+            m.put("compressFloats", cfg.sparkCompressFloats);
+            // On a cluster the executors serialize in their own JVMs and these would read ~0.
+            if (cfg.sparkMaster.startsWith("local")) {
+                m.put("payloadRawBytes", rawBytes.get());
+                m.put("payloadSerializedBytes", serializedBytes.get());
+                m.put("serializeMs", serializeNanos.get() / 1e6);
+                m.put("deserializeMs", deserializeNanos.get() / 1e6);
+            }
+        }
+        return m;
+    }
+
+    @Override
+    public void registerClasses(Kryo kryo) {
+        FloatArraySerializer floats = new FloatArraySerializer(compress);
+        kryo.register(float[].class, floats);
+        kryo.register(SparkBlocksRunner.Block.class, new BlockSerializer(floats));
+        kryo.register(SparkSummaRunner.GridBlock.class, new GridBlockSerializer(floats));
+    }
+
+    static class FloatArraySerializer extends Serializer<float[]> {
+        private final boolean compress;
+        private LZ4Compressor compressor;
+        private LZ4FastDecompressor decompressor;
+        private byte[] planes = new byte[0];
+        private byte[] packed = new byte[0];
+
+        FloatArraySerializer(boolean compress) {
+            this.compress = compress;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, float[] v) {
+            long t0 = System.nanoTime();
+            long start = output.total();
+            output.writeVarInt(v.length, true);
+            if (!compress) {
+                output.writeFloats(v);
+            } else {
+                int n = v.length;
+                byte[] raw = planes(4 * n);
+                for (int i = 0; i < n; i++) {
+                    int bits = Float.floatToRawIntBits(v[i]);
+                    raw[i] = (byte) (bits >>> 24);
+                    raw[n + i] = (byte) (bits >>> 16);
+                    raw[2 * n + i] = (byte) (bits >>> 8);
+                    raw[3 * n + i] = (byte) bits;
+                }
+                if (compressor == null) compressor = LZ4Factory.fastestInstance().fastCompressor();
+                int max = compressor.maxCompressedLength(4 * n);
+                if (packed.length < max) packed = new byte[max];
+                int len = compressor.compress(raw, 0, 4 * n, packed, 0, max);
+                output.writeVarInt(len, true);
+                output.writeBytes(packed, 0, len);
+            }
+            rawBytes.addAndGet(4L * v.length);
+            serializedBytes.addAndGet(output.total() - start);
+            serializeNanos.addAndGet(System.nanoTime() - t0);
+        }
+
+        @Override
+        public float[] read(Kryo kryo, Input input, Class<float[]> type) {
+            long t0 = System.nanoTime();
+            int n = input.readVarInt(true);
+            float[] v;
+            if (!compress) {
+                v = input.readFloats(n);
+            } else {
+                int len = input.readVarInt(true);
+                if (packed.length < len) packed = new byte[len];
+                input.readBytes(packed, 0, len);
+                byte[] raw = planes(4 * n);
+                if (decompressor == null) decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+                decompressor.decompress(packed, 0, raw, 0, 4 * n);
+                v = new float[n];
+                for (int i = 0; i < n; i++) {
+                    int bits = (raw[i] & 0xff) << 24 | (raw[n + i] & 0xff) << 16
+                            | (raw[2 * n + i] & 0xff) << 8 | (raw[3 * n + i] & 0xff);
+                    v[i] = Float.intBitsToFloat(bits);
+                }
+            }
+            deserializeNanos.addAndGet(System.nanoTime() - t0);
+            return v;
+        }
+
+        private byte[] planes(int size) {
+            if (planes.length < size) planes = new byte[size];
+            return planes;
+        }
+    }
+
+    static class BlockSerializer extends Serializer<SparkBlocksRunner.Block> {
+        private final FloatArraySerializer floats;
+
+        BlockSerializer(FloatArraySerializer floats) {
+            this.floats = floats;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, SparkBlocksRunner.Block b) {
+            output.writeByte((byte) b.kind);
+            output.writeVarInt(b.index, true);
+            floats.write(kryo, output, b.data);
+        }
+
+        @Override
+        public SparkBlocksRunner.Block read(Kryo kryo, Input input, Class<SparkBlocksRunner.Block> type) {
+            char kind = (char) input.readByte();
+            int index = input.readVarInt(true);
+            return new SparkBlocksRunner.Block(kind, index, floats.read(kryo, input, float[].class));
+        }
+    }
+
+    static class GridBlockSerializer extends Serializer<SparkSummaRunner.GridBlock> {
+        private final FloatArraySerializer floats;
+
+        GridBlockSerializer(FloatArraySerializer floats) {
+            this.floats = floats;
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, SparkSummaRunner.GridBlock b) {
+            output.writeByte((byte) b.kind);
+            output.writeVarInt(b.row, true);
+            output.writeVarInt(b.col, true);
+            floats.write(kryo, output, b.data);
+        }
+
+        @Override
+        public SparkSummaRunner.GridBlock read(Kryo kryo, Input input, Class<SparkSummaRunner.GridBlock> type) {
+            char kind = (char) input.readByte();
+            int row = input.readVarInt(true);
+            int col = input.readVarInt(true);
+            return new SparkSummaRunner.GridBlock(kind, row, col, floats.read(kryo, input, float[].class));
+        }
+    }
+}
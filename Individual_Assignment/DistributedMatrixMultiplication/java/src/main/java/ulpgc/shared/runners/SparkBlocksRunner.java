@@ -1,6 +1,5 @@
 package ulpgc.shared.runners;
 
-import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.*;
 import org.apache.spark.executor.TaskMetrics;
 import org.apache.spark.scheduler.SparkListener;
@@ -12,6 +11,12 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class SparkBlocksRunner implements Runner {
+    private final SparkSessionManager spark;
+
+    public SparkBlocksRunner(SparkSessionManager spark) {
+        this.spark = spark;
+    }
+
     @Override public String mode() { return "spark-blocks"; }
 
     static class Block implements Serializable {
@@ -29,6 +34,7 @@ public class SparkBlocksRunner implements Runner {
         private final AtomicLong tasks = new AtomicLong(0);
         private final AtomicLong shuffleReadBytes = new AtomicLong(0);
         private final AtomicLong shuffleWriteBytes = new AtomicLong(0);
+        private final AtomicLong shuffleWriteTimeNs = new AtomicLong(0);
         private final AtomicLong memSpilledBytes = new AtomicLong(0);
         private final AtomicLong diskSpilledBytes = new AtomicLong(0);
         private final AtomicLong executorRunTimeMs = new AtomicLong(0);
@@ -52,6 +58,7 @@ public class SparkBlocksRunner implements Runner {
             }
             if (tm.shuffleWriteMetrics() != null) {
                 shuffleWriteBytes.addAndGet(tm.shuffleWriteMetrics().bytesWritten());
+                shuffleWriteTimeNs.addAndGet(tm.shuffleWriteMetrics().writeTime());
             }
         }
 
@@ -60,6 +67,8 @@ public class SparkBlocksRunner implements Runner {
             m.put("tasks", tasks.get());
             m.put("shuffleReadBytes", shuffleReadBytes.get());
             m.put("shuffleWriteBytes", shuffleWriteBytes.get());
+            // Serialisation, compression and file writes of shuffle output, for either serializer.
+            m.put("shuffleWriteTimeMs", shuffleWriteTimeNs.get() / 1e6);
             m.put("memoryBytesSpilled", memSpilledBytes.get());
             m.put("diskBytesSpilled", diskSpilledBytes.get());
             m.put("executorRunTimeMs", executorRunTimeMs.get());
@@ -70,7 +79,7 @@ public class SparkBlocksRunner implements Runner {
     }
 
     @Override
-    public RunOut run(Utils.Case c, Utils.Config cfg) {
+    public RunOut run(Utils.Case c, Utils.Config cfg) throws Exception {
         int m = c.m(), n = c.n(), p = c.p();
         int bs = cfg.blockSize;
         if (m % bs != 0 || n % bs != 0 || p % bs != 0) {
@@ -78,16 +87,10 @@ public class SparkBlocksRunner implements Runner {
         }
         int nbI = m / bs, nbK = n / bs, nbJ = p / bs;
         int parts = cfg.sparkPartitions;
-        SparkConf conf = new SparkConf()
-                .setMaster(cfg.sparkMaster)
-                .setAppName(cfg.sparkAppName)
-                .set("spark.local.dir", cfg.sparkLocalDir)
-                .set("spark.default.parallelism", String.valueOf(parts))
-                .set("spark.sql.shuffle.partitions", String.valueOf(parts));
-
-        try (JavaSparkContext sc = new JavaSparkContext(conf)) {
-            MetricsListener listener = new MetricsListener();
-            sc.sc().addSparkListener(listener);
+        MetricsListener listener = new MetricsListener();
+        StageMetricsListener stages = new StageMetricsListener();
+        RunOut result = spark.run(cfg, mode(), sc -> {
+            BlockKryoRegistrator.resetStats();
             List<Integer> idx = new ArrayList<>();
             for (int i = 0; i < parts; i++) idx.add(i);
             JavaRDD<Integer> partIdx = sc.parallelize(idx, parts);
@@ -125,42 +128,106 @@ public class SparkBlocksRunner implements Runner {
                 return out.iterator();
             });
 
-            long t0 = System.nanoTime();
-            JavaPairRDD<Integer, Tuple2<Iterable<Block>, Iterable<Block>>> grouped = A.cogroup(B);
-            JavaPairRDD<Tuple2<Integer, Integer>, float[]> partial = grouped.flatMapToPair(kv -> {
-                Iterable<Block> As = kv._2._1;
-                Iterable<Block> Bs = kv._2._2;
+            try {
+                sc.setLocalProperty(StageMetricsListener.PHASE, "generate");
+                long g0 = System.nanoTime();
+                A.cache().count();
+                B.cache().count();
+                double generateSec = (System.nanoTime() - g0) / 1e9;
+                sc.setLocalProperty(StageMetricsListener.PHASE, null);
+
+                long t0 = System.nanoTime();
+                JavaPairRDD<Integer, Tuple2<Iterable<Block>, Iterable<Block>>> grouped = A.cogroup(B);
+                JavaPairRDD<Tuple2<Integer, Integer>, float[]> Cblocks = cfg.sparkInPlaceAccumulation
+                        ? accumulateInPlace(grouped, bs, parts)
+                        : accumulateAllocating(grouped, bs);
+
+                Double checksum = Cblocks.map(kv -> Utils.sumBlock(kv._2)).reduce(Double::sum);
+                double elapsed = (System.nanoTime() - t0) / 1e9;
+                Map<String, Object> extra = new HashMap<>();
+                extra.put("generateSec", generateSec);
+                extra.put("blockSize", bs);
+                extra.put("blocksI", nbI);
+                extra.put("blocksK", nbK);
+                extra.put("blocksJ", nbJ);
+                extra.put("partitions", parts);
+                extra.put("inPlaceAccumulation", cfg.sparkInPlaceAccumulation);
+                extra.put("contextWarmupSec", spark.warmupSec());
+                extra.putAll(BlockKryoRegistrator.stats(cfg));
+
+                return new RunOut(elapsed, checksum, extra);
+            } finally {
+                A.unpersist();
+                B.unpersist();
+            }
+        }, listener, stages);
 
-                List<Block> aList = new ArrayList<>();
-                for (Block b : As) aList.add(b);
+        result.extra().putAll(listener.toMap());
+        result.extra().put("phases", stages.phases());
+        if (cfg.saveStageTimeline) {
+            result.extra().put("timelineFile", Utils.saveTimeline(cfg.outputDir, mode(), c, stages.timeline()).toString());
+        }
+        return result;
+    }
 
-                List<Block> bList = new ArrayList<>();
-                for (Block b : Bs) bList.add(b);
+    private static List<Block> toList(Iterable<Block> blocks) {
+        List<Block> out = new ArrayList<>();
+        for (Block b : blocks) out.add(b);
+        return out;
+    }
 
-                List<Tuple2<Tuple2<Integer, Integer>, float[]>> out = new ArrayList<>();
-                for (Block aBlk : aList) {
-                    for (Block bBlk : bList) {
-                        float[] cBlk = Utils.blockMul(aBlk.data, bBlk.data, bs);
-                        out.add(new Tuple2<>(new Tuple2<>(aBlk.index, bBlk.index), cBlk));
-                    }
+    // One new C block per partial product, then one more per pairwise reduction.
+    private static JavaPairRDD<Tuple2<Integer, Integer>, float[]> accumulateAllocating(
+            JavaPairRDD<Integer, Tuple2<Iterable<Block>, Iterable<Block>>> grouped, int bs) {
+        JavaPairRDD<Tuple2<Integer, Integer>, float[]> partial = grouped.flatMapToPair(kv -> {
+            List<Block> aList = toList(kv._2._1);
+            List<Block> bList = toList(kv._2._2);
+
+            List<Tuple2<Tuple2<Integer, Integer>, float[]>> out = new ArrayList<>();
+            for (Block aBlk : aList) {
+                for (Block bBlk : bList) {
+                    float[] cBlk = new float[bs * bs];
+                    Utils.blockMulAdd(aBlk.data, bBlk.data, cBlk, bs);
+                    out.add(new Tuple2<>(new Tuple2<>(aBlk.index, bBlk.index), cBlk));
                 }
-                return out.iterator();
-            });
-
-            JavaPairRDD<Tuple2<Integer, Integer>, float[]> Cblocks =
-                    partial.reduceByKey(Utils::blockAdd);
-
-            Double checksum = Cblocks.map(kv -> Utils.sumBlock(kv._2)).reduce(Double::sum);
-            double elapsed = (System.nanoTime() - t0) / 1e9;
-            Map<String, Object> extra = new HashMap<>();
-            extra.put("blockSize", bs);
-            extra.put("blocksI", nbI);
-            extra.put("blocksK", nbK);
-            extra.put("blocksJ", nbJ);
-            extra.put("partitions", parts);
-            extra.putAll(listener.toMap());
+            }
+            return out.iterator();
+        });
+        return partial.reduceByKey(Utils::blockAdd);
+    }
 
-            return new RunOut(elapsed, checksum, extra);
-        }
+    /*
+     * Emits (A, B) operand pairs instead of products. combineByKey runs map-side in the same
+     * stage, so the pairs are never serialized: the first pair for a C tile allocates its
+     * accumulator and every later pair is added into it with blockMulAdd. After the shuffle the
+     * per-partition accumulators are summed into the first one. Allocation is one block per
+     * (tile, map partition) rather than per partial product.
+     */
+    private static JavaPairRDD<Tuple2<Integer, Integer>, float[]> accumulateInPlace(
+            JavaPairRDD<Integer, Tuple2<Iterable<Block>, Iterable<Block>>> grouped, int bs, int parts) {
+        JavaPairRDD<Tuple2<Integer, Integer>, Tuple2<float[], float[]>> operands = grouped.flatMapToPair(kv -> {
+            List<Block> aList = toList(kv._2._1);
+            List<Block> bList = toList(kv._2._2);
+
+            List<Tuple2<Tuple2<Integer, Integer>, Tuple2<float[], float[]>>> out = new ArrayList<>();
+            for (Block aBlk : aList) {
+                for (Block bBlk : bList) {
+                    out.add(new Tuple2<>(new Tuple2<>(aBlk.index, bBlk.index), new Tuple2<>(aBlk.data, bBlk.data)));
+                }
+            }
+            return out.iterator();
+        });
+        return operands.combineByKey(
+                ab -> {
+                    float[] acc = new float[bs * bs];
+                    Utils.blockMulAdd(ab._1, ab._2, acc, bs);
+                    return acc;
+                },
+                (acc, ab) -> {
+                    Utils.blockMulAdd(ab._1, ab._2, acc, bs);
+                    return acc;
+                },
+                Utils::blockAddInPlace,
+                parts);
     }
 }
@@ -1,6 +1,5 @@
 package ulpgc.shared.runners;
 
-import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.*;
 import org.apache.spark.broadcast.Broadcast;
 import org.apache.spark.executor.TaskMetrics;
@@ -13,6 +12,12 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class SparkRowsRunner implements Runner {
+    private final SparkSessionManager spark;
+
+    public SparkRowsRunner(SparkSessionManager spark) {
+        this.spark = spark;
+    }
+
     @Override public String mode() { return "spark-rows"; }
 
     static class MetricsListener extends SparkListener {
@@ -58,18 +63,10 @@ public class SparkRowsRunner implements Runner {
     }
 
     @Override
-    public RunOut run(Utils.Case c, Utils.Config cfg) {
-        SparkConf conf = new SparkConf()
-                .setMaster(cfg.sparkMaster)
-                .setAppName(cfg.sparkAppName)
-                .set("spark.local.dir", cfg.sparkLocalDir)
-                .set("spark.default.parallelism", String.valueOf(cfg.sparkPartitions))
-                .set("spark.sql.shuffle.partitions", String.valueOf(cfg.sparkPartitions));
-
-        try (JavaSparkContext sc = new JavaSparkContext(conf)) {
-
-            MetricsListener listener = new MetricsListener();
-            sc.sc().addSparkListener(listener);
+    public RunOut run(Utils.Case c, Utils.Config cfg) throws Exception {
+        MetricsListener listener = new MetricsListener();
+        StageMetricsListener stages = new StageMetricsListener();
+        RunOut result = spark.run(cfg, mode(), sc -> {
             int m = c.m(), n = c.n(), p = c.p();
             int parts = cfg.sparkPartitions;
             float[] B = Utils.randMatrixRowMajor(n, p, 1);
@@ -93,27 +90,47 @@ public class SparkRowsRunner implements Runner {
                 return out.iterator();
             });
 
-            long t0 = System.nanoTime();
-            Double checksum = rows.map(t -> {
-                float[] a = t._2;
-                float[] Bb = bB.value();
-                double sum = 0.0;
-                for (int j = 0; j < p; j++) {
-                    double acc = 0.0;
-                    for (int k = 0; k < n; k++) acc += (double) a[k] * (double) Bb[k * p + j];
-                    sum += acc;
-                }
-                return sum;
-            }).reduce(Double::sum);
+            try {
+                sc.setLocalProperty(StageMetricsListener.PHASE, "generate");
+                long g0 = System.nanoTime();
+                rows.cache().count();
+                double generateSec = (System.nanoTime() - g0) / 1e9;
+                sc.setLocalProperty(StageMetricsListener.PHASE, null);
+                sc.setLocalProperty(StageMetricsListener.RESULT_PHASE, "multiply");
 
-            double elapsed = (System.nanoTime() - t0) / 1e9;
-            Map<String, Object> extra = new HashMap<>();
-            extra.put("partitions", parts);
-            extra.put("rowsPerPart", rowsPerPart);
-            extra.put("broadcastB_bytes", (long) B.length * 4L);
-            extra.putAll(listener.toMap());
+                long t0 = System.nanoTime();
+                Double checksum = rows.map(t -> {
+                    float[] a = t._2;
+                    float[] Bb = bB.value();
+                    double sum = 0.0;
+                    for (int j = 0; j < p; j++) {
+                        double acc = 0.0;
+                        for (int k = 0; k < n; k++) acc += (double) a[k] * (double) Bb[k * p + j];
+                        sum += acc;
+                    }
+                    return sum;
+                }).reduce(Double::sum);
+
+                double elapsed = (System.nanoTime() - t0) / 1e9;
+                Map<String, Object> extra = new HashMap<>();
+                extra.put("generateSec", generateSec);
+                extra.put("partitions", parts);
+                extra.put("rowsPerPart", rowsPerPart);
+                extra.put("broadcastB_bytes", (long) B.length * 4L);
+                extra.put("contextWarmupSec", spark.warmupSec());
+
+                return new RunOut(elapsed, checksum, extra);
+            } finally {
+                rows.unpersist();
+                bB.destroy();
+            }
+        }, listener, stages);
 
-            return new RunOut(elapsed, checksum, extra);
+        result.extra().putAll(listener.toMap());
+        result.extra().put("phases", stages.phases());
+        if (cfg.saveStageTimeline) {
+            result.extra().put("timelineFile", Utils.saveTimeline(cfg.outputDir, mode(), c, stages.timeline()).toString());
         }
+        return result;
     }
 }
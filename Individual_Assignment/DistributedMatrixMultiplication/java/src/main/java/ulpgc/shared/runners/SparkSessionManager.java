@@ -0,0 +1,147 @@
+package ulpgc.shared.runners;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.ContextCleaner;
+import org.apache.spark.scheduler.SparkListener;
+import org.apache.spark.scheduler.SparkListenerStageSubmitted;
+import scala.Option;
+import scala.Tuple2;
+import ulpgc.shared.Utils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One JavaSparkContext per Utils.Config, shared by every Spark run of a suite. The context is
+ * created and warmed up (executors launched, a small shuffle run so serializers and the shuffle
+ * path are JIT-compiled) on first use. Each run gets its own job group and listener; the listener
+ * bus is drained before the listener is attached and again before it is removed, so no events
+ * leak between runs. A different Config replaces the context, since Spark allows only one per JVM.
+ * Because the context outlives the runs, each run's shuffle files and any RDD it left cached are
+ * released when it ends instead of waiting for ContextCleaner to notice they were garbage collected;
+ * runners still destroy their own broadcasts.
+ */
+public class SparkSessionManager implements AutoCloseable {
+    public interface SparkJob<T> {
+        T apply(JavaSparkContext sc) throws Exception;
+    }
+
+    private Utils.Config active;
+    private JavaSparkContext sc;
+    private double warmupSec;
+    private int runs;
+
+    public synchronized JavaSparkContext context(Utils.Config cfg) {
+        if (sc != null && active == cfg) return sc;
+        close();
+        SparkConf conf = new SparkConf()
+                .setMaster(cfg.sparkMaster)
+                .setAppName(cfg.sparkAppName)
+                .set("spark.local.dir", cfg.sparkLocalDir)
+                .set("spark.default.parallelism", String.valueOf(cfg.sparkPartitions))
+                .set("spark.sql.shuffle.partitions", String.valueOf(cfg.sparkPartitions));
+        BlockKryoRegistrator.configure(conf, cfg);
+        long t0 = System.nanoTime();
+        sc = new JavaSparkContext(conf);
+        active = cfg;
+        warmup(cfg.sparkPartitions);
+        warmupSec = (System.nanoTime() - t0) / 1e9;
+        return sc;
+    }
+
+    // Context creation plus warmup time of the current context.
+    public synchronized double warmupSec() {
+        return warmupSec;
+    }
+
+    private void warmup(int parts) {
+        ShuffleTracker shuffles = new ShuffleTracker();
+        sc.sc().addSparkListener(shuffles);
+        sc.setJobGroup("warmup", "context warmup", true);
+        try {
+            List<Integer> idx = new ArrayList<>();
+            for (int i = 0; i < parts * 4; i++) idx.add(i);
+            JavaPairRDD<Integer, float[]> blocks = sc.parallelize(idx, parts)
+                    .mapToPair(i -> new Tuple2<>(i % parts, new float[64 * 64]));
+            blocks.reduceByKey(Utils::blockAddInPlace, parts).count();
+        } finally {
+            sc.clearJobGroup();
+            drain();
+            sc.sc().removeSparkListener(shuffles);
+            release(shuffles.ids);
+        }
+    }
+
+    /**
+     * Runs body in its own job group with the listeners attached only for its duration. The job
+     * group is mode plus a run counter, so runs show up separately in the Spark UI. Listener
+     * state is complete once this returns, not inside body. The phase properties are cleared
+     * whether or not body succeeds.
+     */
+    public synchronized <T> T run(Utils.Config cfg, String mode, SparkJob<T> body,
+                                  SparkListener... listeners) throws Exception {
+        JavaSparkContext ctx = context(cfg);
+        String group = mode + "-" + (++runs);
+        ShuffleTracker shuffles = new ShuffleTracker();
+        drain();
+        ctx.sc().addSparkListener(shuffles);
+        for (SparkListener l : listeners) ctx.sc().addSparkListener(l);
+        ctx.setJobGroup(group, mode + " run " + runs, true);
+        try {
+            return body.apply(ctx);
+        } finally {
+            // Local properties live on this thread and would tag the next run's jobs if body threw.
+            ctx.setLocalProperty(StageMetricsListener.PHASE, null);
+            ctx.setLocalProperty(StageMetricsListener.RESULT_PHASE, null);
+            ctx.clearJobGroup();
+            drain();
+            for (SparkListener l : listeners) ctx.sc().removeSparkListener(l);
+            ctx.sc().removeSparkListener(shuffles);
+            release(shuffles.ids);
+        }
+    }
+
+    // Collects the shuffle ids of every map stage submitted during a run.
+    private static final class ShuffleTracker extends SparkListener {
+        final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void onStageSubmitted(SparkListenerStageSubmitted stageSubmitted) {
+            Option<Object> id = stageSubmitted.stageInfo().shuffleDepId();
+            if (id.isDefined()) ids.add((Integer) id.get());
+        }
+    }
+
+    // SparkContext.cleaner() is private[spark] (public in the bytecode); it is the same cleanup
+    // ContextCleaner runs once a ShuffleDependency is collected, only blocking and right now.
+    private void release(Set<Integer> shuffleIds) {
+        for (JavaRDD<?> rdd : sc.getPersistentRDDs().values()) rdd.unpersist(true);
+        Option<ContextCleaner> cleaner = sc.sc().cleaner();
+        if (cleaner.isEmpty()) return;
+        for (int id : shuffleIds) cleaner.get().doCleanupShuffle(id, true);
+    }
+
+    // listenerBus() is private[spark]: an internal API that is only reachable from Java because
+    // Scala compiles it to a public method. There is no public way to wait for pending events.
+    private void drain() {
+        try {
+            sc.sc().listenerBus().waitUntilEmpty();
+        } catch (TimeoutException e) {
+            System.err.println("Spark listener bus did not drain: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sc != null) {
+            sc.close();
+            sc = null;
+            active = null;
+        }
+    }
+}
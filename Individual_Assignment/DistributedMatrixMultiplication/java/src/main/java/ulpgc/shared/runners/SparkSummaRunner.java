@@ -0,0 +1,212 @@
+package ulpgc.shared.runners;
+
+import org.apache.spark.Partitioner;
+import org.apache.spark.api.java.*;
+import scala.Tuple2;
+import ulpgc.shared.Utils;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * SUMMA-style block multiply. The partitions form a gridRows x gridCols grid and C tile (i, j)
+ * belongs to cell (i % gridRows, j % gridCols). Every A block (i, k) is replicated to the
+ * gridCols cells of its row and every B block (k, j) to the gridRows cells of its column, in a
+ * single shuffle through GridPartitioner. Each cell then holds the full A row-panels and B
+ * column-panels for its tiles and accumulates them locally, so there is no second shuffle of
+ * partial products. Shuffle volume is |A| * gridCols + |B| * gridRows and no longer grows
+ * with nbK. Input blocks use the same seeds as spark-blocks, so the checksums match.
+ */
+public class SparkSummaRunner implements Runner {
+    private final SparkSessionManager spark;
+
+    public SparkSummaRunner(SparkSessionManager spark) {
+        this.spark = spark;
+    }
+
+    @Override public String mode() { return "spark-summa"; }
+
+    static class GridBlock implements Serializable {
+        public char kind;
+        public int row;
+        public int col;
+        public float[] data;
+        public GridBlock(char kind, int row, int col, float[] data) {
+            this.kind = kind;
+            this.row = row;
+            this.col = col;
+            this.data = data;
+        }
+    }
+
+    // Key is the grid cell (r, c); partition id is r * gridCols + c.
+    static class GridPartitioner extends Partitioner {
+        private final int gridRows;
+        private final int gridCols;
+
+        GridPartitioner(int gridRows, int gridCols) {
+            this.gridRows = gridRows;
+            this.gridCols = gridCols;
+        }
+
+        @Override
+        public int numPartitions() {
+            return gridRows * gridCols;
+        }
+
+        @Override
+        public int getPartition(Object key) {
+            @SuppressWarnings("unchecked")
+            Tuple2<Integer, Integer> cell = (Tuple2<Integer, Integer>) key;
+            return cell._1 * gridCols + cell._2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GridPartitioner g && g.gridRows == gridRows && g.gridCols == gridCols;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * gridRows + gridCols;
+        }
+    }
+
+    // Grid shape (rows, cols) with rows * cols <= parts that minimises replicated bytes.
+    static int[] gridShape(int parts, int nbI, int nbJ, long aBytes, long bBytes) {
+        int[] best = {1, 1};
+        long bestCost = Long.MAX_VALUE;
+        for (int r = 1; r <= Math.min(parts, nbI); r++) {
+            int c = Math.min(parts / r, nbJ);
+            long cost = aBytes * c + bBytes * r;
+            if (r * c > best[0] * best[1] || (r * c == best[0] * best[1] && cost < bestCost)) {
+                best = new int[]{r, c};
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public RunOut run(Utils.Case c, Utils.Config cfg) throws Exception {
+        int m = c.m(), n = c.n(), p = c.p();
+        int bs = cfg.blockSize;
+        if (m % bs != 0 || n % bs != 0 || p % bs != 0) {
+            throw new IllegalArgumentException("m,n,p must be multiples of blockSize=" + bs);
+        }
+        int nbI = m / bs, nbK = n / bs, nbJ = p / bs;
+        int parts = cfg.sparkPartitions;
+        long aBytes = (long) m * n * 4L;
+        long bBytes = (long) n * p * 4L;
+        int[] grid = gridShape(parts, nbI, nbJ, aBytes, bBytes);
+        int gridRows = grid[0], gridCols = grid[1];
+
+        SparkBlocksRunner.MetricsListener listener = new SparkBlocksRunner.MetricsListener();
+        StageMetricsListener stages = new StageMetricsListener();
+        RunOut result = spark.run(cfg, mode(), sc -> {
+            BlockKryoRegistrator.resetStats();
+            List<Integer> idx = new ArrayList<>();
+            for (int i = 0; i < parts; i++) idx.add(i);
+            JavaRDD<Integer> partIdx = sc.parallelize(idx, parts);
+
+            JavaPairRDD<Tuple2<Integer, Integer>, GridBlock> A = partIdx.flatMapToPair(pi -> {
+                Random r = new Random(2000L + pi);
+                int total = nbI * nbK;
+                int start = (total * pi) / parts;
+                int end = (total * (pi + 1)) / parts;
+
+                List<Tuple2<Tuple2<Integer, Integer>, GridBlock>> out = new ArrayList<>();
+                for (int t = start; t < end; t++) {
+                    int i = t / nbK;
+                    int k = t % nbK;
+                    float[] blk = new float[bs * bs];
+                    for (int x = 0; x < blk.length; x++) blk[x] = (float) r.nextGaussian();
+                    GridBlock b = new GridBlock('A', i, k, blk);
+                    for (int gc = 0; gc < gridCols; gc++) out.add(new Tuple2<>(new Tuple2<>(i % gridRows, gc), b));
+                }
+                return out.iterator();
+            });
+
+            JavaPairRDD<Tuple2<Integer, Integer>, GridBlock> B = partIdx.flatMapToPair(pi -> {
+                Random r = new Random(3000L + pi);
+                int total = nbK * nbJ;
+                int start = (total * pi) / parts;
+                int end = (total * (pi + 1)) / parts;
+
+                List<Tuple2<Tuple2<Integer, Integer>, GridBlock>> out = new ArrayList<>();
+                for (int t = start; t < end; t++) {
+                    int k = t / nbJ;
+                    int j = t % nbJ;
+                    float[] blk = new float[bs * bs];
+                    for (int x = 0; x < blk.length; x++) blk[x] = (float) r.nextGaussian();
+                    GridBlock b = new GridBlock('B', k, j, blk);
+                    for (int gr = 0; gr < gridRows; gr++) out.add(new Tuple2<>(new Tuple2<>(gr, j % gridCols), b));
+                }
+                return out.iterator();
+            });
+
+            try {
+                sc.setLocalProperty(StageMetricsListener.PHASE, "generate");
+                long g0 = System.nanoTime();
+                A.cache().count();
+                B.cache().count();
+                double generateSec = (System.nanoTime() - g0) / 1e9;
+                sc.setLocalProperty(StageMetricsListener.PHASE, null);
+                sc.setLocalProperty(StageMetricsListener.RESULT_PHASE, "multiply");
+
+                long t0 = System.nanoTime();
+                JavaPairRDD<Tuple2<Integer, Integer>, GridBlock> cells =
+                        A.union(B).partitionBy(new GridPartitioner(gridRows, gridCols));
+
+                Double checksum = cells.mapPartitions(it -> {
+                    // aPanels[i][k] and bPanels[j][k] for the tiles owned by this cell.
+                    Map<Integer, float[][]> aPanels = new HashMap<>();
+                    Map<Integer, float[][]> bPanels = new HashMap<>();
+                    while (it.hasNext()) {
+                        GridBlock b = it.next()._2;
+                        if (b.kind == 'A') {
+                            aPanels.computeIfAbsent(b.row, x -> new float[nbK][])[b.col] = b.data;
+                        } else {
+                            bPanels.computeIfAbsent(b.col, x -> new float[nbK][])[b.row] = b.data;
+                        }
+                    }
+                    double sum = 0.0;
+                    float[] cTile = new float[bs * bs];
+                    for (float[][] aPanel : aPanels.values()) {
+                        for (float[][] bPanel : bPanels.values()) {
+                            Arrays.fill(cTile, 0f);
+                            for (int k = 0; k < nbK; k++) Utils.blockMulAdd(aPanel[k], bPanel[k], cTile, bs);
+                            sum += Utils.sumBlock(cTile);
+                        }
+                    }
+                    return List.of(sum).iterator();
+                }).reduce(Double::sum);
+
+                double elapsed = (System.nanoTime() - t0) / 1e9;
+                Map<String, Object> extra = new HashMap<>();
+                extra.put("generateSec", generateSec);
+                extra.put("blockSize", bs);
+                extra.put("blocksI", nbI);
+                extra.put("blocksK", nbK);
+                extra.put("blocksJ", nbJ);
+                extra.put("partitions", gridRows * gridCols);
+                extra.put("gridRows", gridRows);
+                extra.put("gridCols", gridCols);
+                extra.put("expectedShuffleBytes", aBytes * gridCols + bBytes * gridRows);
+                extra.put("contextWarmupSec", spark.warmupSec());
+                extra.putAll(BlockKryoRegistrator.stats(cfg));
+
+                return new RunOut(elapsed, checksum, extra);
+            } finally {
+                A.unpersist();
+                B.unpersist();
+            }
+        }, listener, stages);
+
+        result.extra().putAll(listener.toMap());
+        result.extra().put("phases", stages.phases());
+        if (cfg.saveStageTimeline) {
+            result.extra().put("timelineFile", Utils.saveTimeline(cfg.outputDir, mode(), c, stages.timeline()).toString());
+        }
+        return result;
+    }
+}
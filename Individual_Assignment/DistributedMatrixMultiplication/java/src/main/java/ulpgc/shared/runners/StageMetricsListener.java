@@ -0,0 +1,200 @@
+package ulpgc.shared.runners;
+
+import org.apache.spark.executor.TaskMetrics;
+import org.apache.spark.scheduler.*;
+import java.util.*;
+
+/**
+ * Per-stage metrics grouped into phases. A stage's phase is the "dmm.phase" local property of
+ * the job that ran it when set (the runners set "generate" while materialising inputs).
+ * Otherwise it follows the stage's place in the multiply job: the result stage is
+ * "dmm.resultPhase" ("reduce" by default), shuffle-map stages without parents write the input
+ * shuffle ("shuffle") and the remaining shuffle-map stages compute partial products ("multiply").
+ */
+public class StageMetricsListener extends SparkListener {
+    public static final String PHASE = "dmm.phase";
+    public static final String RESULT_PHASE = "dmm.resultPhase";
+
+    private static class StageRecord {
+        int stageId;
+        String name;
+        String phase;
+        long submitMs = -1;
+        long completeMs = -1;
+        long shuffleReadBytes;
+        long shuffleWriteBytes;
+        long spilledBytes;
+        long gcMs;
+        final List<Map<String, Object>> tasks = new ArrayList<>();
+        final List<Long> taskMs = new ArrayList<>();
+
+        long medianMs() {
+            if (taskMs.isEmpty()) return 0;
+            List<Long> sorted = new ArrayList<>(taskMs);
+            Collections.sort(sorted);
+            return sorted.get(sorted.size() / 2);
+        }
+
+        long maxMs() {
+            return taskMs.isEmpty() ? 0 : Collections.max(taskMs);
+        }
+
+        // max / median task time of this stage alone; 0 when the median is 0.
+        double skew() {
+            long median = medianMs();
+            return median > 0 ? (double) maxMs() / median : 0.0;
+        }
+    }
+
+    private final Map<Integer, String> phaseProps = new HashMap<>();
+    private final Map<Integer, String> resultPhaseProps = new HashMap<>();
+    private final Map<Integer, StageRecord> stages = new TreeMap<>();
+
+    private StageRecord record(int stageId) {
+        return stages.computeIfAbsent(stageId, id -> {
+            StageRecord r = new StageRecord();
+            r.stageId = id;
+            return r;
+        });
+    }
+
+    @Override
+    public synchronized void onStageSubmitted(SparkListenerStageSubmitted submitted) {
+        int id = submitted.stageInfo().stageId();
+        Properties props = submitted.properties();
+        if (props != null) {
+            if (props.getProperty(PHASE) != null) phaseProps.put(id, props.getProperty(PHASE));
+            if (props.getProperty(RESULT_PHASE) != null) resultPhaseProps.put(id, props.getProperty(RESULT_PHASE));
+        }
+    }
+
+    @Override
+    public synchronized void onTaskEnd(SparkListenerTaskEnd taskEnd) {
+        StageRecord r = record(taskEnd.stageId());
+        TaskInfo info = taskEnd.taskInfo();
+        TaskMetrics tm = taskEnd.taskMetrics();
+        Map<String, Object> t = new LinkedHashMap<>();
+        t.put("taskId", info.taskId());
+        t.put("executorId", info.executorId());
+        t.put("launchMs", info.launchTime());
+        t.put("finishMs", info.finishTime());
+        r.taskMs.add(info.duration());
+        if (tm != null) {
+            long read = tm.shuffleReadMetrics() != null ? tm.shuffleReadMetrics().totalBytesRead() : 0;
+            long write = tm.shuffleWriteMetrics() != null ? tm.shuffleWriteMetrics().bytesWritten() : 0;
+            r.shuffleReadBytes += read;
+            r.shuffleWriteBytes += write;
+            r.spilledBytes += tm.memoryBytesSpilled() + tm.diskBytesSpilled();
+            r.gcMs += tm.jvmGCTime();
+            t.put("runMs", tm.executorRunTime());
+            t.put("gcMs", tm.jvmGCTime());
+            t.put("shuffleReadBytes", read);
+            t.put("shuffleWriteBytes", write);
+        }
+        r.tasks.add(t);
+    }
+
+    @Override
+    public synchronized void onStageCompleted(SparkListenerStageCompleted completed) {
+        StageInfo info = completed.stageInfo();
+        StageRecord r = record(info.stageId());
+        r.name = info.name();
+        if (info.submissionTime().isDefined()) r.submitMs = (Long) info.submissionTime().get();
+        if (info.completionTime().isDefined()) r.completeMs = (Long) info.completionTime().get();
+
+        String phase = phaseProps.get(info.stageId());
+        if (phase == null) {
+            if (info.shuffleDepId().isEmpty()) phase = resultPhaseProps.getOrDefault(info.stageId(), "reduce");
+            else if (info.parentIds().isEmpty()) phase = "shuffle";
+            else phase = "multiply";
+        }
+        r.phase = phase;
+    }
+
+    // phase -> {sec, stages, tasks, taskMedianMs, taskMaxMs, taskSkew, skewStageId, shuffle bytes,
+    // spill, gc}. Skew is per stage, since the stages of a phase (e.g. the A and B map stages of
+    // spark-blocks) run different tasks; the phase reports its most skewed stage.
+    public synchronized Map<String, Object> phases() {
+        Map<String, List<StageRecord>> byPhase = new LinkedHashMap<>();
+        for (StageRecord r : stages.values()) {
+            if (r.phase != null) byPhase.computeIfAbsent(r.phase, p -> new ArrayList<>()).add(r);
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<String, List<StageRecord>> e : byPhase.entrySet()) {
+            long first = Long.MAX_VALUE, last = Long.MIN_VALUE;
+            long read = 0, write = 0, spill = 0, gc = 0;
+            int tasks = 0;
+            StageRecord worst = null;
+            for (StageRecord r : e.getValue()) {
+                if (r.submitMs >= 0) first = Math.min(first, r.submitMs);
+                last = Math.max(last, r.completeMs);
+                read += r.shuffleReadBytes;
+                write += r.shuffleWriteBytes;
+                spill += r.spilledBytes;
+                gc += r.gcMs;
+                tasks += r.taskMs.size();
+                if (worst == null || r.skew() > worst.skew()) worst = r;
+            }
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("sec", first <= last ? (last - first) / 1e3 : 0.0);
+            m.put("stages", e.getValue().size());
+            m.put("tasks", tasks);
+            m.put("taskMedianMs", worst.medianMs());
+            m.put("taskMaxMs", worst.maxMs());
+            m.put("taskSkew", worst.skew());
+            m.put("skewStageId", worst.stageId);
+            m.put("shuffleReadBytes", read);
+            m.put("shuffleWriteBytes", write);
+            m.put("spilledBytes", spill);
+            m.put("jvmGCTimeMs", gc);
+            out.put(e.getKey(), m);
+        }
+        return out;
+    }
+
+    // One entry per stage with its tasks and task-time skew, times relative to the first stage
+    // submission. Without any submission time (e.g. after a failed job) the earliest task launch
+    // is the origin; times that were never recorded stay -1.
+    public synchronized List<Map<String, Object>> timeline() {
+        long origin = Long.MAX_VALUE;
+        for (StageRecord r : stages.values()) {
+            if (r.submitMs >= 0) origin = Math.min(origin, r.submitMs);
+        }
+        if (origin == Long.MAX_VALUE) {
+            for (StageRecord r : stages.values()) {
+                for (Map<String, Object> t : r.tasks) origin = Math.min(origin, (Long) t.get("launchMs"));
+            }
+        }
+        if (origin == Long.MAX_VALUE) origin = 0;
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (StageRecord r : stages.values()) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("stageId", r.stageId);
+            s.put("phase", r.phase);
+            s.put("name", r.name);
+            s.put("submitMs", relative(r.submitMs, origin));
+            s.put("completeMs", relative(r.completeMs, origin));
+            s.put("taskMedianMs", r.medianMs());
+            s.put("taskMaxMs", r.maxMs());
+            s.put("taskSkew", r.skew());
+            s.put("shuffleReadBytes", r.shuffleReadBytes);
+            s.put("shuffleWriteBytes", r.shuffleWriteBytes);
+            s.put("spilledBytes", r.spilledBytes);
+            List<Map<String, Object>> tasks = new ArrayList<>();
+            for (Map<String, Object> t : r.tasks) {
+                Map<String, Object> rel = new LinkedHashMap<>(t);
+                rel.put("launchMs", relative((Long) t.get("launchMs"), origin));
+                rel.put("finishMs", relative((Long) t.get("finishMs"), origin));
+                tasks.add(rel);
+            }
+            s.put("tasks", tasks);
+            out.add(s);
+        }
+        return out;
+    }
+
+    private static long relative(long ms, long origin) {
+        return ms < 0 ? -1 : ms - origin;
+    }
+}
@@ -5,9 +5,10 @@ import java.util.concurrent.TimeUnit;
 
 @BenchmarkMode(Mode.AverageTime)
 @OutputTimeUnit(TimeUnit.MILLISECONDS)
-@Fork(value = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
 @Warmup(iterations = 2)
 @Measurement(iterations = 5)
+// Run with "-prof gc" to compare gc.alloc.rate.norm of mul (fresh C per call) against gemm.
 public class MatMulJmh {
 
     @State(Scope.Benchmark)
@@ -15,7 +16,7 @@ public class MatMulJmh {
         @Param({"64","128","256","512","1024"})
         public int n;
 
-        @Param({"ikj"})
+        @Param({"ikj", "ikj_simd", "packed", "strassen"})
         public String order;
 
         public double[][] A, B;
@@ -30,6 +31,10 @@ public class MatMulJmh {
             return switch (order) {
                 case "ijk" -> MatrixMul.Order.IJK;
                 case "jik" -> MatrixMul.Order.JIK;
+                case "ikj_simd" -> MatrixMul.Order.IKJ_SIMD;
+                case "packed" -> MatrixMul.Order.PACKED;
+                case "strassen" -> MatrixMul.Order.STRASSEN;
+                case "recursive" -> MatrixMul.Order.RECURSIVE;
                 default -> MatrixMul.Order.IKJ;
             };
         }
@@ -39,4 +44,154 @@ public class MatMulJmh {
     public double[][] mul(Data d) {
         return MatrixMul.mul(d.A, d.B, d.toOrder());
     }
+
+    // Odd sizes where power-of-two tiling fits badly; recursive against the ikj baseline only.
+    @State(Scope.Benchmark)
+    public static class RecursiveData {
+        @Param({"1000","1500"})
+        public int n;
+
+        @Param({"ikj", "recursive"})
+        public String order;
+
+        public double[][] A, B;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            A = MatrixMul.randMatrix(n, 42);
+            B = MatrixMul.randMatrix(n, 43);
+        }
+    }
+
+    @Benchmark
+    public double[][] mulRecursive(RecursiveData d) {
+        return MatrixMul.mul(d.A, d.B, "recursive".equals(d.order) ? MatrixMul.Order.RECURSIVE : MatrixMul.Order.IKJ);
+    }
+
+    @State(Scope.Benchmark)
+    public static class FlatData {
+        @Param({"64","128","256","512","1024"})
+        public int n;
+
+        public FlatMatrix A, B, C;
+        public PackedGemm gemm;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            A = FlatMatrix.random(n, n, 42);
+            B = FlatMatrix.random(n, n, 43);
+            C = new FlatMatrix(n, n);
+            gemm = new PackedGemm();
+        }
+    }
+
+    @Benchmark
+    public FlatMatrix packedFlat(FlatData d) {
+        d.gemm.multiply(d.A, d.B, d.C);
+        return d.C;
+    }
+
+    @State(Scope.Benchmark)
+    public static class StrassenData {
+        @Param({"1024","2048","4096"})
+        public int n;
+
+        @Param({"128","256"})
+        public int cutoff;
+
+        public FlatMatrix A, B, C;
+        public Strassen strassen;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            A = FlatMatrix.random(n, n, 42);
+            B = FlatMatrix.random(n, n, 43);
+            C = new FlatMatrix(n, n);
+            strassen = new Strassen(cutoff);
+        }
+
+        @TearDown(Level.Trial)
+        public void accuracy() {
+            double[][] ref = MatrixMul.mul(A.toArray(), B.toArray(), MatrixMul.Order.IKJ);
+            System.out.printf("%nstrassen n=%d cutoff=%d max rel error vs ikj: %.3e%n",
+                    n, cutoff, MatrixMul.maxRelError(C.toArray(), ref));
+        }
+    }
+
+    @Benchmark
+    public FlatMatrix strassenFlat(StrassenData d) {
+        d.strassen.multiply(d.A, d.B, d.C);
+        return d.C;
+    }
+
+    @State(Scope.Benchmark)
+    public static class GemmData {
+        // m x k x n
+        @Param({"512x512x512","1024x1024x1024","1000x300x700"})
+        public String shape;
+
+        @Param({"nn","tn","nt"})
+        public String trans;
+
+        public boolean transA, transB;
+        public FlatMatrix A, B, C;
+        public double[][] Aj, Bj, Cj;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            String[] d = shape.split("x");
+            int m = Integer.parseInt(d[0]), k = Integer.parseInt(d[1]), n = Integer.parseInt(d[2]);
+            transA = trans.charAt(0) == 't';
+            transB = trans.charAt(1) == 't';
+            A = transA ? FlatMatrix.random(k, m, 42) : FlatMatrix.random(m, k, 42);
+            B = transB ? FlatMatrix.random(n, k, 43) : FlatMatrix.random(k, n, 43);
+            C = new FlatMatrix(m, n);
+            Aj = A.toArray();
+            Bj = B.toArray();
+            Cj = C.toArray();
+        }
+    }
+
+    @Benchmark
+    public FlatMatrix gemmFlat(GemmData d) {
+        MatrixMul.gemm(d.transA, d.transB, 1.0, d.A, d.B, 0.0, d.C);
+        return d.C;
+    }
+
+    @Benchmark
+    public double[][] gemmJagged(GemmData d) {
+        MatrixMul.gemm(d.transA, d.transB, 1.0, d.Aj, d.Bj, 0.0, d.Cj);
+        return d.Cj;
+    }
+
+    @State(Scope.Benchmark)
+    public static class ChainData {
+        @Param({"256","512","1024"})
+        public int n;
+
+        public FlatMatrix A, B, C, x;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            A = FlatMatrix.random(n, n, 42);
+            B = FlatMatrix.random(n, n, 43);
+            C = FlatMatrix.random(n, n, 44);
+            x = FlatMatrix.random(n, 1, 45);
+        }
+    }
+
+    @Benchmark
+    public FlatMatrix chainEager(ChainData d) {
+        FlatMatrix ab = new FlatMatrix(d.n, d.n), abc = new FlatMatrix(d.n, d.n), y = new FlatMatrix(d.n, 1);
+        MatrixMul.gemm(false, false, 1.0, d.A, d.B, 0.0, ab);
+        MatrixMul.gemm(false, false, 1.0, ab, d.C, 0.0, abc);
+        MatrixMul.gemm(false, false, 1.0, abc, d.x, 0.0, y);
+        return y;
+    }
+
+    @Benchmark
+    public FlatMatrix chainLazy(ChainData d) {
+        return MatrixExpr.of(d.A).times(MatrixExpr.of(d.B)).times(MatrixExpr.of(d.C))
+                .times(MatrixExpr.of(d.x)).evaluate();
+    }
 }
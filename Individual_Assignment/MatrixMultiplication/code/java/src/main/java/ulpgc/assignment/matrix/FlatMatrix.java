@@ -0,0 +1,41 @@
+package ulpgc.assignment.matrix;
+
+import java.util.Random;
+
+public final class FlatMatrix {
+    public final int rows, cols;
+    public final double[] data;
+
+    public FlatMatrix(int rows, int cols){
+        this(rows, cols, new double[rows*cols]);
+    }
+
+    public FlatMatrix(int rows, int cols, double[] data){
+        if(data.length != rows*cols)
+            throw new IllegalArgumentException("data length "+data.length+" != "+rows+"x"+cols);
+        this.rows=rows; this.cols=cols; this.data=data;
+    }
+
+    public static FlatMatrix random(int rows, int cols, long seed){
+        Random r = new Random(seed);
+        FlatMatrix m = new FlatMatrix(rows, cols);
+        for(int i=0;i<m.data.length;i++) m.data[i]=r.nextDouble();
+        return m;
+    }
+
+    public static FlatMatrix of(double[][] M){
+        int rows=M.length, cols=rows==0 ? 0 : M[0].length;
+        FlatMatrix m = new FlatMatrix(rows, cols);
+        for(int i=0;i<rows;i++) System.arraycopy(M[i], 0, m.data, i*cols, cols);
+        return m;
+    }
+
+    public double get(int i, int j){ return data[i*cols+j]; }
+    public void set(int i, int j, double v){ data[i*cols+j]=v; }
+
+    public double[][] toArray(){
+        double[][] M = new double[rows][cols];
+        for(int i=0;i<rows;i++) System.arraycopy(data, i*cols, M[i], 0, cols);
+        return M;
+    }
+}
@@ -0,0 +1,218 @@
+package ulpgc.assignment.matrix;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lazy matrix expression over FlatMatrix operands. Building an expression only records a DAG of
+ * multiply, add, transpose and scale nodes; nothing is computed until evaluate().
+ *
+ * Evaluation pushes transposes and scales down to the operands, so they become gemm flags and
+ * alpha instead of copies. Products are flattened into chains and parenthesized by the classic
+ * matrix-chain DP. Sums are accumulated into one output buffer: element-wise terms are written
+ * first and each product lands on top of them through gemm's beta. Non-leaf nodes referenced more
+ * than once are materialized once and reused.
+ */
+public abstract class MatrixExpr {
+    public final int rows, cols;
+
+    private MatrixExpr(int rows, int cols){
+        this.rows=rows; this.cols=cols;
+    }
+
+    public static MatrixExpr of(FlatMatrix m){ return new Leaf(m); }
+
+    public MatrixExpr times(MatrixExpr o){
+        if(cols!=o.rows)
+            throw new IllegalArgumentException("cannot multiply "+rows+"x"+cols+" by "+o.rows+"x"+o.cols);
+        return new Product(this, o);
+    }
+
+    public MatrixExpr plus(MatrixExpr o){
+        if(rows!=o.rows || cols!=o.cols)
+            throw new IllegalArgumentException("cannot add "+rows+"x"+cols+" and "+o.rows+"x"+o.cols);
+        return new Sum(this, o);
+    }
+
+    public MatrixExpr scale(double s){ return new Scale(this, s); }
+
+    public MatrixExpr transpose(){ return new Transpose(this); }
+
+    public FlatMatrix evaluate(){
+        FlatMatrix out = new FlatMatrix(rows, cols);
+        new Evaluator(this).into(this, out);
+        return out;
+    }
+
+    private static final class Leaf extends MatrixExpr {
+        final FlatMatrix m;
+        Leaf(FlatMatrix m){ super(m.rows, m.cols); this.m=m; }
+    }
+
+    private static final class Product extends MatrixExpr {
+        final MatrixExpr left, right;
+        Product(MatrixExpr l, MatrixExpr r){ super(l.rows, r.cols); left=l; right=r; }
+    }
+
+    private static final class Sum extends MatrixExpr {
+        final MatrixExpr left, right;
+        Sum(MatrixExpr l, MatrixExpr r){ super(l.rows, l.cols); left=l; right=r; }
+    }
+
+    private static final class Scale extends MatrixExpr {
+        final MatrixExpr inner;
+        final double s;
+        Scale(MatrixExpr e, double s){ super(e.rows, e.cols); inner=e; this.s=s; }
+    }
+
+    private static final class Transpose extends MatrixExpr {
+        final MatrixExpr inner;
+        Transpose(MatrixExpr e){ super(e.cols, e.rows); inner=e; }
+    }
+
+    // coef * op(m), where op transposes when trans is set.
+    private record Operand(FlatMatrix m, boolean trans, double coef){
+        int rows(){ return trans ? m.cols : m.rows; }
+        int cols(){ return trans ? m.rows : m.cols; }
+    }
+
+    // A node seen through an optional transpose.
+    private record Factor(MatrixExpr e, boolean trans){
+        int rows(){ return trans ? e.cols : e.rows; }
+        int cols(){ return trans ? e.rows : e.cols; }
+    }
+
+    private record Term(double coef, Factor leaf, List<Factor> chain){}
+
+    private static final class Evaluator {
+        private final Map<MatrixExpr, Integer> refs = new IdentityHashMap<>();
+        private final Map<MatrixExpr, FlatMatrix> done = new IdentityHashMap<>();
+
+        Evaluator(MatrixExpr root){ count(root); }
+
+        private void count(MatrixExpr e){
+            if(refs.merge(e, 1, Integer::sum)>1) return;
+            if(e instanceof Product p){ count(p.left); count(p.right); }
+            else if(e instanceof Sum s){ count(s.left); count(s.right); }
+            else if(e instanceof Scale s) count(s.inner);
+            else if(e instanceof Transpose t) count(t.inner);
+        }
+
+        private boolean shared(MatrixExpr e){
+            return !(e instanceof Leaf) && refs.getOrDefault(e, 0)>1;
+        }
+
+        // Writes e into out, which has e's shape.
+        void into(MatrixExpr e, FlatMatrix out){
+            List<Term> terms = new ArrayList<>();
+            collect(e, false, 1.0, terms, true);
+            boolean init=false;
+            for(Term t : terms){
+                if(t.leaf()==null) continue;
+                accumulate(operand(t.leaf(), t.coef()), out, init);
+                init=true;
+            }
+            for(Term t : terms){
+                if(t.chain()==null) continue;
+                chain(t.chain(), t.coef(), out, init ? 1.0 : 0.0);
+                init=true;
+            }
+        }
+
+        private void collect(MatrixExpr e, boolean trans, double coef, List<Term> out, boolean root){
+            if(!root && shared(e)) out.add(new Term(coef, new Factor(e, trans), null));
+            else if(e instanceof Sum s){
+                collect(s.left, trans, coef, out, false);
+                collect(s.right, trans, coef, out, false);
+            } else if(e instanceof Scale s) collect(s.inner, trans, coef*s.s, out, false);
+            else if(e instanceof Transpose t) collect(t.inner, !trans, coef, out, false);
+            else if(e instanceof Product){
+                List<Factor> fs = new ArrayList<>();
+                double c = factors(e, trans, fs, true);
+                out.add(new Term(coef*c, null, fs));
+            } else out.add(new Term(coef, new Factor(e, trans), null));
+        }
+
+        // Flattens nested products into fs in multiplication order and returns the scalars pulled out.
+        private double factors(MatrixExpr e, boolean trans, List<Factor> fs, boolean root){
+            if(!root && shared(e)){ fs.add(new Factor(e, trans)); return 1.0; }
+            if(e instanceof Product p){
+                MatrixExpr first = trans ? p.right : p.left, second = trans ? p.left : p.right;
+                return factors(first, trans, fs, false)*factors(second, trans, fs, false);
+            }
+            if(e instanceof Scale s) return s.s*factors(s.inner, trans, fs, false);
+            if(e instanceof Transpose t) return factors(t.inner, !trans, fs, false);
+            fs.add(new Factor(e, trans));
+            return 1.0;
+        }
+
+        private Operand operand(Factor f, double coef){
+            MatrixExpr e=f.e();
+            if(e instanceof Leaf l) return new Operand(l.m, f.trans(), coef);
+            if(!shared(e)){
+                if(e instanceof Transpose t) return operand(new Factor(t.inner, !f.trans()), coef);
+                if(e instanceof Scale s) return operand(new Factor(s.inner, f.trans()), coef*s.s);
+            }
+            FlatMatrix m = done.get(e);
+            if(m==null){
+                m = new FlatMatrix(e.rows, e.cols);
+                into(e, m);
+                if(shared(e)) done.put(e, m);
+            }
+            return new Operand(m, f.trans(), coef);
+        }
+
+        // out (+)= coef * op(m)
+        private static void accumulate(Operand o, FlatMatrix out, boolean add){
+            double[] src=o.m().data, dst=out.data;
+            int r=out.rows, c=out.cols, ld=o.m().cols;
+            double k=o.coef();
+            for(int i=0;i<r;i++)
+                for(int j=0;j<c;j++){
+                    double v = k*(o.trans() ? src[j*ld+i] : src[i*ld+j]);
+                    dst[i*c+j] = add ? dst[i*c+j]+v : v;
+                }
+        }
+
+        // out = alpha * (f0 f1 ... fn-1) + beta * out, in the cheapest parenthesization.
+        private void chain(List<Factor> fs, double alpha, FlatMatrix out, double beta){
+            int n=fs.size();
+            long[] p = new long[n+1];
+            for(int i=0;i<n;i++) p[i]=fs.get(i).rows();
+            p[n]=fs.get(n-1).cols();
+            int[][] split = chainSplits(p);
+            Operand l = product(fs, split, 0, split[0][n-1]);
+            Operand r = product(fs, split, split[0][n-1]+1, n-1);
+            MatrixMul.gemm(l.trans(), r.trans(), alpha*l.coef()*r.coef(), l.m(), r.m(), beta, out);
+        }
+
+        private Operand product(List<Factor> fs, int[][] split, int i, int j){
+            if(i==j) return operand(fs.get(i), 1.0);
+            Operand l = product(fs, split, i, split[i][j]);
+            Operand r = product(fs, split, split[i][j]+1, j);
+            FlatMatrix m = new FlatMatrix(l.rows(), r.cols());
+            MatrixMul.gemm(l.trans(), r.trans(), l.coef()*r.coef(), l.m(), r.m(), 0.0, m);
+            return new Operand(m, false, 1.0);
+        }
+    }
+
+    // Matrix-chain DP over dims p (factor i is p[i] x p[i+1]); split[i][j] is the last factor of
+    // the left operand in the cheapest product of factors i..j.
+    static int[][] chainSplits(long[] p){
+        int n=p.length-1;
+        long[][] cost = new long[n][n];
+        int[][] split = new int[n][n];
+        for(int len=2;len<=n;len++)
+            for(int i=0;i+len-1<n;i++){
+                int j=i+len-1;
+                cost[i][j]=Long.MAX_VALUE;
+                for(int k=i;k<j;k++){
+                    long q = cost[i][k]+cost[k+1][j]+p[i]*p[k+1]*p[j+1];
+                    if(q<cost[i][j]){ cost[i][j]=q; split[i][j]=k; }
+                }
+            }
+        return split;
+    }
+}
@@ -1,9 +1,13 @@
 package ulpgc.assignment.matrix;
 
+import java.util.Arrays;
 import java.util.Random;
 
 public class MatrixMul {
-    public enum Order { IJK, IKJ, JIK }
+    public enum Order { IJK, IKJ, JIK, IKJ_SIMD, PACKED, STRASSEN, RECURSIVE }
+
+    // Largest block edge the RECURSIVE order hands to its IKJ base case.
+    static final int RECURSIVE_BASE = 32;
 
     public static double[][] randMatrix(int n, long seed){
         Random r = new Random(seed);
@@ -41,7 +45,109 @@ public class MatrixMul {
                         C[i][j]=s;
                     }
             }
+            case IKJ_SIMD -> VectorMul.ikj(A, B, C, n);
+            case PACKED -> {
+                FlatMatrix F = new FlatMatrix(n, n);
+                new PackedGemm().multiply(FlatMatrix.of(A), FlatMatrix.of(B), F);
+                for(int i=0;i<n;i++) System.arraycopy(F.data, i*n, C[i], 0, n);
+            }
+            case RECURSIVE -> recursive(A, B, C, 0, 0, 0, n, n, n);
+            case STRASSEN -> {
+                FlatMatrix F = new FlatMatrix(n, n);
+                new Strassen().multiply(FlatMatrix.of(A), FlatMatrix.of(B), F);
+                for(int i=0;i<n;i++) System.arraycopy(F.data, i*n, C[i], 0, n);
+            }
         }
         return C;
     }
+
+    // C[i0.., j0..] += A[i0.., k0..] * B[k0.., j0..] over an m x k by k x n block, halving the
+    // largest dimension until the block fits the base case, whatever the cache sizes are.
+    private static void recursive(double[][] A, double[][] B, double[][] C,
+                                  int i0, int j0, int k0, int m, int n, int k){
+        if(m<=RECURSIVE_BASE && n<=RECURSIVE_BASE && k<=RECURSIVE_BASE){
+            for(int i=i0;i<i0+m;i++){
+                double[] a=A[i], c=C[i];
+                for(int p=k0;p<k0+k;p++){
+                    double aip=a[p];
+                    double[] b=B[p];
+                    for(int j=j0;j<j0+n;j++) c[j]+=aip*b[j];
+                }
+            }
+        } else if(m>=n && m>=k){
+            int h=m/2;
+            recursive(A, B, C, i0, j0, k0, h, n, k);
+            recursive(A, B, C, i0+h, j0, k0, m-h, n, k);
+        } else if(n>=k){
+            int h=n/2;
+            recursive(A, B, C, i0, j0, k0, m, h, k);
+            recursive(A, B, C, i0, j0+h, k0, m, n-h, k);
+        } else {
+            int h=k/2;
+            recursive(A, B, C, i0, j0, k0, m, n, h);
+            recursive(A, B, C, i0, j0, k0+h, m, n, k-h);
+        }
+    }
+
+    /**
+     * C = alpha * op(A) * op(B) + beta * C into the caller's C, with op(X) = X or X^T.
+     * op(A) is m x k and op(B) is k x n; transposed operands are indexed in place.
+     */
+    public static void gemm(boolean transA, boolean transB, double alpha, double[][] A, double[][] B,
+                            double beta, double[][] C){
+        int m = transA ? cols(A) : A.length, k = transA ? A.length : cols(A);
+        int kB = transB ? cols(B) : B.length, n = transB ? B.length : cols(B);
+        if(k!=kB || C.length!=m || cols(C)!=n)
+            throw new IllegalArgumentException("shape mismatch: op(A) "+m+"x"+k+" * op(B) "
+                    +kB+"x"+n+" -> C "+C.length+"x"+cols(C));
+        for(int i=0;i<m;i++){
+            double[] c=C[i];
+            if(beta==0.0) Arrays.fill(c, 0.0);
+            else if(beta!=1.0) for(int j=0;j<n;j++) c[j]*=beta;
+        }
+        if(alpha==0.0) return;
+        if(!transB){
+            for(int i=0;i<m;i++){
+                double[] c=C[i];
+                for(int p=0;p<k;p++){
+                    double aip=alpha*(transA ? A[p][i] : A[i][p]);
+                    double[] b=B[p];
+                    for(int j=0;j<n;j++) c[j]+=aip*b[j];
+                }
+            }
+        } else {
+            for(int i=0;i<m;i++){
+                double[] c=C[i];
+                for(int j=0;j<n;j++){
+                    double[] b=B[j];
+                    double s=0;
+                    if(transA) for(int p=0;p<k;p++) s+=A[p][i]*b[p];
+                    else {
+                        double[] a=A[i];
+                        for(int p=0;p<k;p++) s+=a[p]*b[p];
+                    }
+                    c[j]+=alpha*s;
+                }
+            }
+        }
+    }
+
+    // Flat-storage gemm on a per-thread PackedGemm; see PackedGemm.gemm.
+    public static void gemm(boolean transA, boolean transB, double alpha, FlatMatrix A, FlatMatrix B,
+                            double beta, FlatMatrix C){
+        PackedGemm.local().gemm(transA, transB, alpha, A, B, beta, C);
+    }
+
+    private static int cols(double[][] M){ return M.length==0 ? 0 : M[0].length; }
+
+    // max |X - Ref| / max |Ref|
+    public static double maxRelError(double[][] X, double[][] Ref){
+        double diff=0, scale=0;
+        for(int i=0;i<Ref.length;i++)
+            for(int j=0;j<Ref[i].length;j++){
+                diff=Math.max(diff, Math.abs(X[i][j]-Ref[i][j]));
+                scale=Math.max(scale, Math.abs(Ref[i][j]));
+            }
+        return scale==0 ? diff : diff/scale;
+    }
 }
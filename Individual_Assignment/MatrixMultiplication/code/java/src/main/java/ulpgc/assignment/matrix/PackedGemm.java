@@ -0,0 +1,166 @@
+package ulpgc.assignment.matrix;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+import java.util.Arrays;
+
+/**
+ * GotoBLAS-style GEMM on flat row-major storage.
+ * Columns of C are blocked by nc (L3), the shared dimension by kc and rows of A by mc (L2).
+ * Each kc x nc slice of B and mc x kc slice of A is packed into contiguous micro-panels
+ * that an MR x NR register-blocked kernel streams through.
+ * An instance reuses its packing buffers between calls, so it must not be shared across threads.
+ */
+public final class PackedGemm {
+    private static final VectorSpecies<Double> SPECIES = VectorMul.SPECIES;
+    private static final int LANES = SPECIES.length();
+    public static final int MR = 4;
+    public static final int NR = 2*LANES;
+    private static final ThreadLocal<PackedGemm> LOCAL = ThreadLocal.withInitial(PackedGemm::new);
+
+    private final int mc, kc, nc;
+    private double[] aPack = new double[0], bPack = new double[0];
+    private final double[] edge = new double[MR*NR];
+
+    public PackedGemm(){ this(128, 256, 4096); }
+
+    public PackedGemm(int mc, int kc, int nc){
+        if(mc<=0 || kc<=0 || nc<=0) throw new IllegalArgumentException("block sizes must be positive");
+        this.mc=roundUp(mc, MR); this.kc=kc; this.nc=roundUp(nc, NR);
+    }
+
+    // Per-thread engine with default blocking, so static callers reuse its packing buffers.
+    static PackedGemm local(){ return LOCAL.get(); }
+
+    public void multiply(FlatMatrix A, FlatMatrix B, FlatMatrix C){
+        gemm(false, false, 1.0, A, B, 0.0, C);
+    }
+
+    /**
+     * C = alpha * op(A) * op(B) + beta * C, where op(X) is X or its transpose.
+     * Transposes are read in place through strides; nothing but the packing buffers is allocated.
+     * As in BLAS, beta == 0 overwrites C without reading it.
+     */
+    public void gemm(boolean transA, boolean transB, double alpha, FlatMatrix A, FlatMatrix B,
+                     double beta, FlatMatrix C){
+        int m = transA ? A.cols : A.rows, k = transA ? A.rows : A.cols;
+        int kB = transB ? B.cols : B.rows, n = transB ? B.rows : B.cols;
+        if(k!=kB || C.rows!=m || C.cols!=n)
+            throw new IllegalArgumentException("shape mismatch: op(A) "+m+"x"+k+" * op(B) "
+                    +kB+"x"+n+" -> C "+C.rows+"x"+C.cols);
+        scale(beta, C.data);
+        if(alpha==0.0 || k==0) return;
+        gemm(m, n, k, alpha,
+                A.data, 0, transA ? 1 : A.cols, transA ? A.cols : 1,
+                B.data, 0, transB ? 1 : B.cols, transB ? B.cols : 1,
+                C.data, 0, C.cols);
+    }
+
+    static void scale(double beta, double[] c){
+        if(beta==0.0) Arrays.fill(c, 0.0);
+        else if(beta!=1.0) for(int i=0;i<c.length;i++) c[i]*=beta;
+    }
+
+    // C[m x n] += alpha * A[m x k] * B[k x n], where A(i,p) = a[aOff + i*aRs + p*aCs] and likewise for B.
+    void gemm(int m, int n, int k, double alpha,
+              double[] a, int aOff, int aRs, int aCs,
+              double[] b, int bOff, int bRs, int bCs,
+              double[] c, int cOff, int ldc){
+        for(int jc=0;jc<n;jc+=nc){
+            int nb=Math.min(nc, n-jc);
+            for(int pc=0;pc<k;pc+=kc){
+                int kb=Math.min(kc, k-pc);
+                packB(kb, nb, b, bOff+pc*bRs+jc*bCs, bRs, bCs);
+                for(int ic=0;ic<m;ic+=mc){
+                    int mb=Math.min(mc, m-ic);
+                    packA(mb, kb, a, aOff+ic*aRs+pc*aCs, aRs, aCs);
+                    for(int jr=0;jr<nb;jr+=NR){
+                        int nr=Math.min(NR, nb-jr);
+                        for(int ir=0;ir<mb;ir+=MR){
+                            int mr=Math.min(MR, mb-ir);
+                            kernel(kb, ir*kb, jr*kb, c, cOff+(ic+ir)*ldc+jc+jr, ldc, mr, nr, alpha);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // MR-row micro-panels, column-major inside each panel, zero-padded to a multiple of MR.
+    private void packA(int mb, int kb, double[] a, int off, int rs, int cs){
+        int size=roundUp(mb, MR)*kb;
+        if(aPack.length<size) aPack=new double[size];
+        double[] ap=aPack;
+        int t=0;
+        for(int ir=0;ir<mb;ir+=MR){
+            int mr=Math.min(MR, mb-ir);
+            for(int p=0;p<kb;p++){
+                int src=off+ir*rs+p*cs;
+                for(int r=0;r<MR;r++) ap[t++] = r<mr ? a[src+r*rs] : 0.0;
+            }
+        }
+    }
+
+    // NR-column micro-panels, row-major inside each panel, zero-padded to a multiple of NR.
+    private void packB(int kb, int nb, double[] b, int off, int rs, int cs){
+        int size=roundUp(nb, NR)*kb;
+        if(bPack.length<size) bPack=new double[size];
+        double[] bp=bPack;
+        int t=0;
+        for(int jr=0;jr<nb;jr+=NR){
+            int nr=Math.min(NR, nb-jr);
+            for(int p=0;p<kb;p++){
+                int src=off+p*rs+jr*cs;
+                if(cs==1 && nr==NR){
+                    System.arraycopy(b, src, bp, t, NR);
+                    t+=NR;
+                } else {
+                    for(int q=0;q<NR;q++) bp[t++] = q<nr ? b[src+q*cs] : 0.0;
+                }
+            }
+        }
+    }
+
+    private void kernel(int kb, int ai, int bi, double[] c, int ci, int ldc, int mr, int nr, double alpha){
+        double[] ap=aPack, bp=bPack;
+        DoubleVector c00=DoubleVector.zero(SPECIES), c01=c00, c10=c00, c11=c00,
+                     c20=c00, c21=c00, c30=c00, c31=c00;
+        for(int p=0;p<kb;p++, ai+=MR, bi+=NR){
+            DoubleVector b0=DoubleVector.fromArray(SPECIES, bp, bi);
+            DoubleVector b1=DoubleVector.fromArray(SPECIES, bp, bi+LANES);
+            DoubleVector a=DoubleVector.broadcast(SPECIES, ap[ai]);
+            c00=a.fma(b0, c00); c01=a.fma(b1, c01);
+            a=DoubleVector.broadcast(SPECIES, ap[ai+1]);
+            c10=a.fma(b0, c10); c11=a.fma(b1, c11);
+            a=DoubleVector.broadcast(SPECIES, ap[ai+2]);
+            c20=a.fma(b0, c20); c21=a.fma(b1, c21);
+            a=DoubleVector.broadcast(SPECIES, ap[ai+3]);
+            c30=a.fma(b0, c30); c31=a.fma(b1, c31);
+        }
+        if(alpha!=1.0){
+            c00=c00.mul(alpha); c01=c01.mul(alpha); c10=c10.mul(alpha); c11=c11.mul(alpha);
+            c20=c20.mul(alpha); c21=c21.mul(alpha); c30=c30.mul(alpha); c31=c31.mul(alpha);
+        }
+        if(mr==MR && nr==NR){
+            store(c00, c01, c, ci);
+            store(c10, c11, c, ci+ldc);
+            store(c20, c21, c, ci+2*ldc);
+            store(c30, c31, c, ci+3*ldc);
+        } else {
+            double[] t=edge;
+            c00.intoArray(t, 0);      c01.intoArray(t, LANES);
+            c10.intoArray(t, NR);     c11.intoArray(t, NR+LANES);
+            c20.intoArray(t, 2*NR);   c21.intoArray(t, 2*NR+LANES);
+            c30.intoArray(t, 3*NR);   c31.intoArray(t, 3*NR+LANES);
+            for(int r=0;r<mr;r++)
+                for(int q=0;q<nr;q++) c[ci+r*ldc+q]+=t[r*NR+q];
+        }
+    }
+
+    private static void store(DoubleVector lo, DoubleVector hi, double[] c, int ci){
+        DoubleVector.fromArray(SPECIES, c, ci).add(lo).intoArray(c, ci);
+        DoubleVector.fromArray(SPECIES, c, ci+LANES).add(hi).intoArray(c, ci+LANES);
+    }
+
+    private static int roundUp(int x, int m){ return (x+m-1)/m*m; }
+}
@@ -0,0 +1,130 @@
+package ulpgc.assignment.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Strassen-Winograd multiplication (7 products, 15 additions per level) for square matrices.
+ * Blocks at or below the cutoff go to PackedGemm. Sizes are padded up to cutoff-sized tiles
+ * times a power of two, and the padded operands plus every level's temporaries are carved
+ * out of a single arena that is kept between calls. Instances are not thread-safe.
+ */
+public final class Strassen {
+    public static final int DEFAULT_CUTOFF = 256;
+
+    private final int cutoff;
+    private final PackedGemm base = new PackedGemm();
+    private double[] arena = new double[0];
+
+    public Strassen(){ this(DEFAULT_CUTOFF); }
+
+    public Strassen(int cutoff){
+        if(cutoff<1) throw new IllegalArgumentException("cutoff must be >= 1");
+        this.cutoff=cutoff;
+    }
+
+    public int cutoff(){ return cutoff; }
+
+    public void multiply(FlatMatrix A, FlatMatrix B, FlatMatrix C){
+        int n=A.rows;
+        if(A.cols!=n || B.rows!=n || B.cols!=n || C.rows!=n || C.cols!=n)
+            throw new IllegalArgumentException("Strassen needs square matrices of equal size");
+        int N=paddedSize(n);
+        if(N==n){
+            ensureArena(workspace(N));
+            mul(A.data, 0, n, B.data, 0, n, C.data, 0, n, n, 0);
+            return;
+        }
+        int nn=N*N;
+        ensureArena(3*nn+workspace(N));
+        double[] w=arena;
+        Arrays.fill(w, 0, 3*nn, 0.0);
+        for(int i=0;i<n;i++){
+            System.arraycopy(A.data, i*n, w, i*N, n);
+            System.arraycopy(B.data, i*n, w, nn+i*N, n);
+        }
+        mul(w, 0, N, w, nn, N, w, 2*nn, N, N, 3*nn);
+        for(int i=0;i<n;i++) System.arraycopy(w, 2*nn+i*N, C.data, i*n, n);
+    }
+
+    // Smallest N >= n of the form t * 2^d with t <= cutoff.
+    int paddedSize(int n){
+        int d=0;
+        while(ceilDiv(n, 1<<d)>cutoff) d++;
+        return ceilDiv(n, 1<<d)<<d;
+    }
+
+    // Current arena length in doubles; only grows.
+    int arenaCapacity(){ return arena.length; }
+
+    private int workspace(int s){
+        int total=0;
+        while(s>cutoff){
+            s/=2;
+            total+=4*s*s;
+        }
+        return total;
+    }
+
+    private void ensureArena(int size){
+        if(arena.length<size) arena=new double[size];
+    }
+
+    // C = A * B for s x s views; ws is the first free arena slot for this level.
+    private void mul(double[] a, int ao, int lda, double[] b, int bo, int ldb,
+                     double[] c, int co, int ldc, int s, int ws){
+        if(s<=cutoff){
+            for(int i=0;i<s;i++) Arrays.fill(c, co+i*ldc, co+i*ldc+s, 0.0);
+            base.gemm(s, s, s, 1.0, a, ao, lda, 1, b, bo, ldb, 1, c, co, ldc);
+            return;
+        }
+        int h=s/2, hh=h*h;
+        int a11=ao, a12=ao+h, a21=ao+h*lda, a22=a21+h;
+        int b11=bo, b12=bo+h, b21=bo+h*ldb, b22=b21+h;
+        int c11=co, c12=co+h, c21=co+h*ldc, c22=c21+h;
+        double[] w=arena;
+        int x=ws, y=ws+hh, m1=ws+2*hh, m2=ws+3*hh, next=ws+4*hh;
+
+        mul(a, a11, lda, b, b11, ldb, w, m1, h, h, next);          // P1
+        mul(a, a12, lda, b, b21, ldb, c, c11, ldc, h, next);       // P2
+        add(h, c, c11, ldc, w, m1, h, c, c11, ldc);                // C11 = P1 + P2
+
+        add(h, a, a21, lda, a, a22, lda, w, x, h);                 // S1
+        sub(h, b, b12, ldb, b, b11, ldb, w, y, h);                 // T1
+        mul(w, x, h, w, y, h, c, c22, ldc, h, next);               // P5
+        sub(h, w, x, h, a, a11, lda, w, x, h);                     // S2
+        sub(h, b, b22, ldb, w, y, h, w, y, h);                     // T2
+        mul(w, x, h, w, y, h, w, m2, h, h, next);                  // P6
+        add(h, w, m1, h, w, m2, h, w, m1, h);                      // U2 = P1 + P6
+        sub(h, a, a12, lda, w, x, h, w, x, h);                     // S4
+        mul(w, x, h, b, b22, ldb, c, c12, ldc, h, next);           // P3
+        sub(h, w, y, h, b, b21, ldb, w, y, h);                     // T4
+        mul(a, a22, lda, w, y, h, c, c21, ldc, h, next);           // P4
+        sub(h, a, a11, lda, a, a21, lda, w, x, h);                 // S3
+        sub(h, b, b22, ldb, b, b12, ldb, w, y, h);                 // T3
+        mul(w, x, h, w, y, h, w, m2, h, h, next);                  // P7
+
+        add(h, w, m1, h, w, m2, h, w, m2, h);                      // U3 = U2 + P7
+        add(h, w, m1, h, c, c22, ldc, w, m1, h);                   // U4 = U2 + P5
+        add(h, w, m2, h, c, c22, ldc, c, c22, ldc);                // C22 = U3 + P5
+        add(h, w, m1, h, c, c12, ldc, c, c12, ldc);                // C12 = U4 + P3
+        sub(h, w, m2, h, c, c21, ldc, c, c21, ldc);                // C21 = U3 - P4
+    }
+
+    private static void add(int s, double[] x, int xo, int ldx, double[] y, int yo, int ldy,
+                            double[] z, int zo, int ldz){
+        for(int i=0;i<s;i++){
+            int xi=xo+i*ldx, yi=yo+i*ldy, zi=zo+i*ldz;
+            for(int j=0;j<s;j++) z[zi+j]=x[xi+j]+y[yi+j];
+        }
+    }
+
+    private static void sub(int s, double[] x, int xo, int ldx, double[] y, int yo, int ldy,
+                            double[] z, int zo, int ldz){
+        for(int i=0;i<s;i++){
+            int xi=xo+i*ldx, yi=yo+i*ldy, zi=zo+i*ldz;
+            for(int j=0;j<s;j++) z[zi+j]=x[xi+j]-y[yi+j];
+        }
+    }
+
+    private static int ceilDiv(int a, int b){ return (a+b-1)/b; }
+}
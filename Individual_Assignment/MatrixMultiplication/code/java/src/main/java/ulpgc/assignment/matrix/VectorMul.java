@@ -0,0 +1,31 @@
+package ulpgc.assignment.matrix;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Kept apart from MatrixMul so the scalar orders still load when the JVM runs
+// without --add-modules jdk.incubator.vector.
+final class VectorMul {
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorMul(){}
+
+    static void ikj(double[][] A, double[][] B, double[][] C, int n){
+        int lanes = SPECIES.length();
+        int upper = SPECIES.loopBound(n);
+        for(int i=0;i<n;i++){
+            double[] a=A[i], c=C[i];
+            for(int k=0;k<n;k++){
+                double aik=a[k];
+                double[] b=B[k];
+                DoubleVector va = DoubleVector.broadcast(SPECIES, aik);
+                int j=0;
+                for(;j<upper;j+=lanes){
+                    DoubleVector vc = DoubleVector.fromArray(SPECIES, c, j);
+                    va.fma(DoubleVector.fromArray(SPECIES, b, j), vc).intoArray(c, j);
+                }
+                for(;j<n;j++) c[j]+=aik*b[j];
+            }
+        }
+    }
+}
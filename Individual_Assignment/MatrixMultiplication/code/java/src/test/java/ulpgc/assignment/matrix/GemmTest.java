@@ -0,0 +1,66 @@
+package ulpgc.assignment.matrix;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GemmTest {
+    private static double[][] rand(int r, int c, long seed){
+        return FlatMatrix.random(r, c, seed).toArray();
+    }
+
+    private static double[][] t(double[][] M){
+        double[][] T=new double[M[0].length][M.length];
+        for(int i=0;i<M.length;i++) for(int j=0;j<M[0].length;j++) T[j][i]=M[i][j];
+        return T;
+    }
+
+    private static double[][] expected(double alpha, double[][] A, double[][] B, double beta, double[][] C){
+        int m=A.length, k=B.length, n=B[0].length;
+        double[][] R=new double[m][n];
+        for(int i=0;i<m;i++) for(int j=0;j<n;j++){
+            double s=0;
+            for(int p=0;p<k;p++) s+=A[i][p]*B[p][j];
+            R[i][j]=alpha*s+beta*C[i][j];
+        }
+        return R;
+    }
+
+    @Test
+    void allTransposeCombinations(){
+        int m=23, k=17, n=41;
+        double[][] A=rand(m, k, 1), B=rand(k, n, 2), C0=rand(m, n, 3);
+        double[][] ref=expected(1.5, A, B, -0.5, C0);
+        for(boolean ta : new boolean[]{false, true})
+            for(boolean tb : new boolean[]{false, true}){
+                double[][] opA = ta ? t(A) : A, opB = tb ? t(B) : B;
+
+                double[][] C=rand(m, n, 3);
+                MatrixMul.gemm(ta, tb, 1.5, opA, opB, -0.5, C);
+                for(int i=0;i<m;i++) assertArrayEquals(ref[i], C[i], 1e-9, "jagged ta="+ta+" tb="+tb);
+
+                FlatMatrix F=FlatMatrix.of(C0);
+                MatrixMul.gemm(ta, tb, 1.5, FlatMatrix.of(opA), FlatMatrix.of(opB), -0.5, F);
+                double[][] got=F.toArray();
+                for(int i=0;i<m;i++) assertArrayEquals(ref[i], got[i], 1e-9, "flat ta="+ta+" tb="+tb);
+            }
+    }
+
+    @Test
+    void betaZeroIgnoresExistingContents(){
+        double[][] A={{1,2},{3,4}}, B={{5,6},{7,8}};
+        double[][] C={{Double.NaN, Double.NaN},{Double.NaN, Double.NaN}};
+        MatrixMul.gemm(false, false, 1.0, A, B, 0.0, C);
+        assertArrayEquals(new double[]{19,22}, C[0], 1e-12);
+        FlatMatrix F=new FlatMatrix(2, 2, new double[]{Double.NaN, 0, 0, Double.NaN});
+        MatrixMul.gemm(false, false, 1.0, FlatMatrix.of(A), FlatMatrix.of(B), 0.0, F);
+        assertArrayEquals(new double[]{19,22,43,50}, F.data, 1e-12);
+    }
+
+    @Test
+    void rejectsMismatchedShapes(){
+        assertThrows(IllegalArgumentException.class,
+                () -> MatrixMul.gemm(false, false, 1.0, new double[2][3], new double[2][3], 0.0, new double[2][3]));
+        assertThrows(IllegalArgumentException.class,
+                () -> MatrixMul.gemm(true, false, 1.0, new FlatMatrix(3,2), new FlatMatrix(3,4), 0.0, new FlatMatrix(3,4)));
+    }
+}
@@ -0,0 +1,71 @@
+package ulpgc.assignment.matrix;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatrixExprTest {
+    private static FlatMatrix mul(FlatMatrix A, FlatMatrix B){
+        FlatMatrix C=new FlatMatrix(A.rows, B.cols);
+        MatrixMul.gemm(false, false, 1.0, A, B, 0.0, C);
+        return C;
+    }
+
+    private static void assertClose(FlatMatrix expected, FlatMatrix actual){
+        assertEquals(expected.rows, actual.rows);
+        assertEquals(expected.cols, actual.cols);
+        assertArrayEquals(expected.data, actual.data, 1e-9);
+    }
+
+    @Test
+    void chainSplitsMatchesTextbookExample(){
+        int[][] s=MatrixExpr.chainSplits(new long[]{30,35,15,5,10,20,25});
+        assertEquals(2, s[0][5]);
+        assertEquals(0, s[0][2]);
+        assertEquals(4, s[3][5]);
+    }
+
+    @Test
+    void matrixVectorChainIsEvaluatedRightToLeft(){
+        int[][] s=MatrixExpr.chainSplits(new long[]{64,64,64,64,1});
+        assertEquals(0, s[0][3]);
+        assertEquals(1, s[1][3]);
+    }
+
+    @Test
+    void chainedProductWithVector(){
+        FlatMatrix A=FlatMatrix.random(20, 30, 1), B=FlatMatrix.random(30, 25, 2),
+                   C=FlatMatrix.random(25, 40, 3), x=FlatMatrix.random(40, 1, 4);
+        FlatMatrix lazy=MatrixExpr.of(A).times(MatrixExpr.of(B)).times(MatrixExpr.of(C)).times(MatrixExpr.of(x)).evaluate();
+        assertClose(mul(mul(mul(A, B), C), x), lazy);
+    }
+
+    @Test
+    void transposedScaledProductPlusMatrix(){
+        FlatMatrix A=FlatMatrix.random(12, 7, 5), B=FlatMatrix.random(7, 9, 6), D=FlatMatrix.random(9, 12, 7);
+        FlatMatrix got=MatrixExpr.of(A).times(MatrixExpr.of(B)).transpose().scale(2.0)
+                .plus(MatrixExpr.of(D).scale(-1.0)).evaluate();
+        double[][] ab=mul(A, B).toArray();
+        FlatMatrix want=new FlatMatrix(9, 12);
+        for(int i=0;i<9;i++) for(int j=0;j<12;j++) want.set(i, j, 2.0*ab[j][i]-D.get(i, j));
+        assertClose(want, got);
+    }
+
+    @Test
+    void sharedSubexpressionAndTransposedLeaves(){
+        FlatMatrix A=FlatMatrix.random(10, 10, 8), B=FlatMatrix.random(10, 10, 9), C=FlatMatrix.random(10, 10, 10);
+        MatrixExpr ab=MatrixExpr.of(A).times(MatrixExpr.of(B));
+        FlatMatrix got=ab.times(MatrixExpr.of(C).transpose()).plus(ab).evaluate();
+        FlatMatrix abm=mul(A, B);
+        FlatMatrix ct=MatrixExpr.of(C).transpose().evaluate();
+        FlatMatrix want=mul(abm, ct);
+        for(int i=0;i<want.data.length;i++) want.data[i]+=abm.data[i];
+        assertClose(want, got);
+    }
+
+    @Test
+    void rejectsIncompatibleShapes(){
+        MatrixExpr a=MatrixExpr.of(new FlatMatrix(2, 3));
+        assertThrows(IllegalArgumentException.class, () -> a.times(a));
+        assertThrows(IllegalArgumentException.class, () -> a.plus(a.transpose()));
+    }
+}
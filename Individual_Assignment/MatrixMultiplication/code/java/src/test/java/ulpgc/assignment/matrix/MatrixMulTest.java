@@ -14,4 +14,24 @@ public class MatrixMulTest {
         assertEquals(43.0, C[1][0], 1e-9);
         assertEquals(50.0, C[1][1], 1e-9);
     }
+
+    @Test
+    void simdMatchesIkj(){
+        int n=37;
+        double[][] A=MatrixMul.randMatrix(n, 1);
+        double[][] B=MatrixMul.randMatrix(n, 2);
+        double[][] ref=MatrixMul.mul(A,B, MatrixMul.Order.IKJ);
+        double[][] C=MatrixMul.mul(A,B, MatrixMul.Order.IKJ_SIMD);
+        for(int i=0;i<n;i++) assertArrayEquals(ref[i], C[i], 1e-9);
+    }
+
+    @Test
+    void recursiveMatchesIkjAtNonPowerOfTwo(){
+        int n=MatrixMul.RECURSIVE_BASE*3+5;
+        double[][] A=MatrixMul.randMatrix(n, 7);
+        double[][] B=MatrixMul.randMatrix(n, 8);
+        double[][] ref=MatrixMul.mul(A,B, MatrixMul.Order.IKJ);
+        double[][] C=MatrixMul.mul(A,B, MatrixMul.Order.RECURSIVE);
+        for(int i=0;i<n;i++) assertArrayEquals(ref[i], C[i], 1e-9);
+    }
 }
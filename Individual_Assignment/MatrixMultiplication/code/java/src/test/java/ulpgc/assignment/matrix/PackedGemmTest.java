@@ -0,0 +1,39 @@
+package ulpgc.assignment.matrix;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedGemmTest {
+    private static double[][] naive(double[][] A, double[][] B){
+        int m=A.length, k=B.length, n=B[0].length;
+        double[][] C=new double[m][n];
+        for(int i=0;i<m;i++) for(int p=0;p<k;p++) for(int j=0;j<n;j++) C[i][j]+=A[i][p]*B[p][j];
+        return C;
+    }
+
+    @Test
+    void rectangularAcrossBlockEdges(){
+        FlatMatrix A=FlatMatrix.random(37, 29, 1);
+        FlatMatrix B=FlatMatrix.random(29, 45, 2);
+        FlatMatrix C=new FlatMatrix(37, 45);
+        new PackedGemm(8, 7, 2*PackedGemm.NR).multiply(A, B, C);
+        double[][] ref=naive(A.toArray(), B.toArray());
+        for(int i=0;i<37;i++) assertArrayEquals(ref[i], C.toArray()[i], 1e-9);
+    }
+
+    @Test
+    void packedOrderMatchesIkj(){
+        int n=70;
+        double[][] A=MatrixMul.randMatrix(n, 3);
+        double[][] B=MatrixMul.randMatrix(n, 4);
+        double[][] ref=MatrixMul.mul(A,B, MatrixMul.Order.IKJ);
+        double[][] C=MatrixMul.mul(A,B, MatrixMul.Order.PACKED);
+        for(int i=0;i<n;i++) assertArrayEquals(ref[i], C[i], 1e-9);
+    }
+
+    @Test
+    void rejectsShapeMismatch(){
+        assertThrows(IllegalArgumentException.class,
+                () -> new PackedGemm().multiply(new FlatMatrix(2,3), new FlatMatrix(2,3), new FlatMatrix(2,3)));
+    }
+}
@@ -0,0 +1,42 @@
+package ulpgc.assignment.matrix;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StrassenTest {
+    @Test
+    void paddedSizeIsCutoffTilesTimesPowerOfTwo(){
+        Strassen s=new Strassen(64);
+        assertEquals(64, s.paddedSize(64));
+        assertEquals(100, s.paddedSize(100));
+        assertEquals(102, s.paddedSize(101));
+        assertEquals(1008, s.paddedSize(1000));
+    }
+
+    @Test
+    void matchesIkjOnOddSizes(){
+        for(int n : new int[]{1, 31, 64, 97}){
+            double[][] A=MatrixMul.randMatrix(n, 5);
+            double[][] B=MatrixMul.randMatrix(n, 6);
+            double[][] ref=MatrixMul.mul(A,B, MatrixMul.Order.IKJ);
+            FlatMatrix C=new FlatMatrix(n, n);
+            new Strassen(8).multiply(FlatMatrix.of(A), FlatMatrix.of(B), C);
+            assertTrue(MatrixMul.maxRelError(C.toArray(), ref) < 1e-12, "n="+n);
+        }
+    }
+
+    @Test
+    void arenaIsReusedAcrossSizes(){
+        Strassen s=new Strassen(16);
+        int capacity=0;
+        for(int n : new int[]{100, 40, 64}){
+            FlatMatrix A=FlatMatrix.random(n, n, n), B=FlatMatrix.random(n, n, n+1), C=new FlatMatrix(n, n);
+            s.multiply(A, B, C);
+            double[][] ref=MatrixMul.mul(A.toArray(), B.toArray(), MatrixMul.Order.IKJ);
+            assertTrue(MatrixMul.maxRelError(C.toArray(), ref) < 1e-12, "n="+n);
+            if(capacity==0) capacity=s.arenaCapacity();
+            else assertEquals(capacity, s.arenaCapacity(), "arena grew for n="+n);
+        }
+        assertTrue(capacity>0);
+    }
+}
@@ -0,0 +1,188 @@
+package ulpgc.shared.matrix;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Picks an implementation, thread count and tile size per size class (n rounded up to a power
+ * of two). The first multiply in a class times every candidate on the caller's operands and keeps
+ * the fastest; winners are written to a properties profile so later runs start tuned.
+ */
+public class AutotunedMatrixMultiplier implements MatrixMultiplier, AutoCloseable {
+    public static final String DEFAULT_PROFILE = "matrix-autotune.properties";
+    private static final int[][] TILE_OPTIONS = {{16, 128}, {32, 256}, {64, 512}};
+
+    public record Plan(String impl, int threads, int tileRows, int tileCols) {
+        static Plan parse(String s) {
+            String[] f = s.split(",");
+            return new Plan(f[0], Integer.parseInt(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+        }
+
+        String format() {
+            return impl + "," + threads + "," + tileRows + "," + tileCols;
+        }
+    }
+
+    private final Path profile;
+    private final int hwThreads;
+    private final int trialRuns;
+    private final Map<Integer, Plan> plans = new HashMap<>();
+    private final Map<Plan, MatrixMultiplier> live = new HashMap<>();
+
+    public AutotunedMatrixMultiplier() {
+        this(Paths.get(System.getProperty("user.dir"), DEFAULT_PROFILE), 2);
+    }
+
+    public AutotunedMatrixMultiplier(Path profile, int trialRuns) {
+        this.profile = profile;
+        this.hwThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.trialRuns = Math.max(1, trialRuns);
+        load();
+    }
+
+    @Override
+    public String getName() {
+        return "Autotuned";
+    }
+
+    @Override
+    public void multiply(double[] A, double[] B, double[] C, int n) {
+        multiplierFor(plan(A, B, C, n)).multiply(A, B, C, n);
+    }
+
+    public synchronized Plan plan(double[] A, double[] B, double[] C, int n) {
+        int sizeClass = sizeClass(n);
+        Plan p = plans.get(sizeClass);
+        if (p == null) {
+            p = tune(A, B, C, n);
+            plans.put(sizeClass, p);
+            save();
+        }
+        return p;
+    }
+
+    static int sizeClass(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    List<Integer> threadCandidates() {
+        return threadCandidates(hwThreads);
+    }
+
+    // Powers of two below the hardware thread count, plus the count itself.
+    static List<Integer> threadCandidates(int hwThreads) {
+        List<Integer> out = new ArrayList<>();
+        for (int t = 1; t < hwThreads; t *= 2) out.add(t);
+        out.add(hwThreads);
+        return out;
+    }
+
+    List<Plan> candidates() {
+        List<Plan> out = new ArrayList<>();
+        out.add(new Plan("basic", 1, 0, 0));
+        for (int t : threadCandidates()) {
+            if (t > 1) {
+                out.add(new Plan("stream", t, 0, 0));
+                out.add(new Plan("executor", t, 0, 0));
+            }
+            for (int[] tile : TILE_OPTIONS) out.add(new Plan("forkjoin", t, tile[0], tile[1]));
+        }
+        return out;
+    }
+
+    private Plan tune(double[] A, double[] B, double[] C, int n) {
+        Plan best = null;
+        double bestMs = Double.MAX_VALUE;
+        for (Plan candidate : candidates()) {
+            MatrixMultiplier m = create(candidate);
+            try {
+                m.multiply(A, B, C, n);
+                double ms = Double.MAX_VALUE;
+                for (int r = 0; r < trialRuns; r++) {
+                    long t1 = System.nanoTime();
+                    m.multiply(A, B, C, n);
+                    long t2 = System.nanoTime();
+                    ms = Math.min(ms, MatrixUtils.elapsedMs(t1, t2));
+                }
+                if (ms < bestMs) {
+                    bestMs = ms;
+                    best = candidate;
+                }
+            } finally {
+                closeQuietly(m);
+            }
+        }
+        return best;
+    }
+
+    private MatrixMultiplier multiplierFor(Plan p) {
+        synchronized (live) {
+            return live.computeIfAbsent(p, AutotunedMatrixMultiplier::create);
+        }
+    }
+
+    private static MatrixMultiplier create(Plan p) {
+        return switch (p.impl()) {
+            case "basic" -> new BasicMatrixMultiplier();
+            case "stream" -> new ParallelStreamMatrixMultiplier(p.threads());
+            case "executor" -> new ExecutorMatrixMultiplier(p.threads());
+            case "forkjoin" -> new ForkJoinMatrixMultiplier(p.threads(), p.tileRows(), p.tileCols());
+            default -> throw new IllegalArgumentException("Unknown implementation: " + p.impl());
+        };
+    }
+
+    // A profile recorded on a machine with a different thread count is ignored.
+    private void load() {
+        if (!Files.exists(profile)) return;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(profile)) {
+            props.load(r);
+        } catch (IOException e) {
+            System.err.println("Could not read autotune profile " + profile + ": " + e.getMessage());
+            return;
+        }
+        if (!String.valueOf(hwThreads).equals(props.getProperty("hwThreads"))) return;
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith("n.")) continue;
+            try {
+                plans.put(Integer.parseInt(key.substring(2)), Plan.parse(props.getProperty(key)));
+            } catch (RuntimeException e) {
+                System.err.println("Ignoring malformed autotune entry " + key);
+            }
+        }
+    }
+
+    private void save() {
+        Properties props = new Properties();
+        props.setProperty("hwThreads", String.valueOf(hwThreads));
+        for (Map.Entry<Integer, Plan> e : plans.entrySet()) {
+            props.setProperty("n." + e.getKey(), e.getValue().format());
+        }
+        try (Writer w = Files.newBufferedWriter(profile)) {
+            props.store(w, "impl,threads,tileRows,tileCols per size class");
+        } catch (IOException e) {
+            System.err.println("Could not write autotune profile " + profile + ": " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(MatrixMultiplier m) {
+        if (m instanceof AutoCloseable c) {
+            try {
+                c.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (live) {
+            live.values().forEach(AutotunedMatrixMultiplier::closeQuietly);
+            live.clear();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ulpgc.shared.matrix;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multiplies many independent n x n products in one call. Item i lives at
+ * aOff + i * stride (likewise for B and C) inside flat row-major buffers, so a batch is either three
+ * strided arrays or a single buffer of interleaved (A, B, C) triples. Items are split into ranges
+ * over a long-lived ForkJoinPool; every worker accumulates rows in its own scratch row, so nothing
+ * is allocated per item.
+ */
+public class BatchedMatrixMultiplier implements AutoCloseable {
+    private static final int SPLITS_PER_THREAD = 8;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<double[]> scratch = ThreadLocal.withInitial(() -> new double[0]);
+
+    public BatchedMatrixMultiplier(int numThreads) {
+        this.pool = new ForkJoinPool(Math.max(1, numThreads));
+    }
+
+    public int getNumThreads() {
+        return pool.getParallelism();
+    }
+
+    public String getName() {
+        return "Batched(" + pool.getParallelism() + " threads)";
+    }
+
+    // C_i = A_i * B_i for count items packed back to back (stride n * n) in each buffer.
+    public void multiplyBatch(double[] A, double[] B, double[] C, int n, int count) {
+        int nn = n * n;
+        multiplyStrided(A, 0, B, 0, C, 0, nn, n, count);
+    }
+
+    // triples holds count consecutive [A_i | B_i | C_i] blocks of 3 * n * n values.
+    public void multiplyInterleaved(double[] triples, int n, int count) {
+        int nn = n * n;
+        multiplyStrided(triples, 0, triples, nn, triples, 2 * nn, 3 * nn, n, count);
+    }
+
+    public void multiplyStrided(double[] A, int aOff, double[] B, int bOff, double[] C, int cOff,
+                                int stride, int n, int count) {
+        if (count <= 0) return;
+        if (aOff < 0 || bOff < 0 || cOff < 0) {
+            throw new IllegalArgumentException("batch offsets must be non-negative");
+        }
+        // A smaller stride would make consecutive items overlap, and parallel tasks would alias C.
+        if (stride < (long) n * n) {
+            throw new IllegalArgumentException("stride " + stride + " is smaller than n * n = " + (long) n * n);
+        }
+        long last = (long) (count - 1) * stride + (long) n * n;
+        if (aOff + last > A.length || bOff + last > B.length || cOff + last > C.length) {
+            throw new IllegalArgumentException("batch of " + count + " items with stride " + stride
+                    + " does not fit the buffers");
+        }
+        int grain = Math.max(1, count / (pool.getParallelism() * SPLITS_PER_THREAD));
+        pool.invoke(new RangeTask(A, aOff, B, bOff, C, cOff, stride, n, 0, count, grain));
+    }
+
+    private final class RangeTask extends RecursiveAction {
+        private final double[] A, B, C;
+        private final int aOff, bOff, cOff, stride, n, from, to, grain;
+
+        RangeTask(double[] A, int aOff, double[] B, int bOff, double[] C, int cOff,
+                  int stride, int n, int from, int to, int grain) {
+            this.A = A;
+            this.aOff = aOff;
+            this.B = B;
+            this.bOff = bOff;
+            this.C = C;
+            this.cOff = cOff;
+            this.stride = stride;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                double[] acc = scratch.get();
+                if (acc.length < n) {
+                    acc = new double[n];
+                    scratch.set(acc);
+                }
+                for (int item = from; item < to; item++) {
+                    long base = (long) item * stride;
+                    multiplyOne((int) (aOff + base), (int) (bOff + base), (int) (cOff + base), acc);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(A, aOff, B, bOff, C, cOff, stride, n, from, mid, grain),
+                    new RangeTask(A, aOff, B, bOff, C, cOff, stride, n, mid, to, grain));
+        }
+
+        private void multiplyOne(int a0, int b0, int c0, double[] acc) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    acc[j] = 0.0;
+                }
+                int baseAi = a0 + i * n;
+                for (int k = 0; k < n; k++) {
+                    double aik = A[baseAi + k];
+                    int baseBk = b0 + k * n;
+                    for (int j = 0; j < n; j++) {
+                        acc[j] += aik * B[baseBk + j];
+                    }
+                }
+                System.arraycopy(acc, 0, C, c0 + i * n, n);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
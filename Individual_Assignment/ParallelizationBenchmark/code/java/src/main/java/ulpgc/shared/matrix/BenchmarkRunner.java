@@ -6,80 +6,301 @@ import java.util.*;
 import static ulpgc.shared.matrix.MatrixUtils.*;
 
 public class BenchmarkRunner {
+    // Relative error above which a result is reported as not matching the basic multiplier.
+    private static final double TOLERANCE = 1e-9;
+    // Median CI half-width (relative) above which a measurement is flagged as noisy.
+    private static final double NOISY_CI = 0.05;
+
+    // --warmup N --iterations N --stream-parallelism P --sizes 256,512,1024
+    static final class Options {
+        private static final Set<String> FLAGS = Set.of("--warmup", "--iterations", "--stream-parallelism", "--sizes");
+
+        int warmup = 3;
+        int iterations = 10;
+        int streamParallelism;
+        int[] sizes = {256, 512, 1024};
+
+        static Options parse(String[] args, int hwThreads) {
+            Options o = new Options();
+            o.streamParallelism = hwThreads;
+            for (int i = 0; i < args.length; i += 2) {
+                if (!FLAGS.contains(args[i])) {
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for option: " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--warmup" -> o.warmup = Math.max(0, Integer.parseInt(value));
+                    case "--iterations" -> o.iterations = Math.max(1, Integer.parseInt(value));
+                    case "--stream-parallelism" -> o.streamParallelism = Math.max(1, Integer.parseInt(value));
+                    case "--sizes" -> o.sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            return o;
+        }
+    }
+
     private static synchronized void writeCsvLine(PrintWriter out, String line) {
         out.println(line);
     }
 
+    private static BenchmarkStats measure(Runnable run, Options opt) {
+        for (int w = 0; w < opt.warmup; w++) {
+            run.run();
+        }
+        double[] times = new double[opt.iterations];
+        for (int it = 0; it < opt.iterations; it++) {
+            long t1 = System.nanoTime();
+            run.run();
+            long t2 = System.nanoTime();
+            times[it] = elapsedMs(t1, t2);
+        }
+        return BenchmarkStats.of(times);
+    }
+
+    // C is poisoned with NaN first, so a multiplier that skips part of C cannot pass the check.
+    private static BenchmarkStats measure(MatrixMultiplier m, double[] A, double[] B, double[] C, int n,
+                                          Options opt) {
+        Arrays.fill(C, Double.NaN);
+        return measure(() -> m.multiply(A, B, C, n), opt);
+    }
+
+    // max |C - ref| / max |ref|
+    private static double relativeError(double[] ref, double[] C) {
+        double diff = 0.0, scale = 0.0;
+        for (int i = 0; i < ref.length; i++) {
+            double d = Math.abs(C[i] - ref[i]);
+            if (Double.isNaN(d)) return Double.POSITIVE_INFINITY;
+            diff = Math.max(diff, d);
+            scale = Math.max(scale, Math.abs(ref[i]));
+        }
+        return scale == 0.0 ? diff : diff / scale;
+    }
+
+    private static void report(PrintWriter stats, int n, String name, int threads, BenchmarkStats st,
+                               double baseMedian, double err, Options opt) {
+        double speedup = baseMedian / st.medianMs();
+        double eff = speedup / threads;
+        boolean ok = err <= TOLERANCE;
+        StringBuilder flags = new StringBuilder();
+        if (st.outliers() > 0) flags.append(" [").append(st.outliers()).append(" outliers]");
+        if (st.relativeCi() > NOISY_CI) flags.append(" [noisy]");
+        if (!ok) flags.append(String.format(Locale.ROOT, " [MISMATCH rel err %.2e]", err));
+        System.out.printf("%s: median %.2f ms, 95%% CI [%.2f, %.2f], p95 %.2f (speedup: %.2f, eff: %.3f)%s%n",
+                name, st.medianMs(), st.ciLowMs(), st.ciHighMs(), st.p95Ms(), speedup, eff, flags);
+        writeCsvLine(stats, String.format(Locale.ROOT,
+                "%d,%s,%d,%d,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%d,%.4f,%.4f,%.3e,%b",
+                n, name.replace(',', ';'), threads, opt.warmup, st.samples(),
+                st.medianMs(), st.meanMs(), st.stddevMs(), st.p95Ms(), st.minMs(), st.maxMs(),
+                st.ciLowMs(), st.ciHighMs(), st.outliers(), speedup, eff, err, ok));
+    }
+
     public static void main(String[] args) {
-        int[] sizes = {256, 512, 1024};
         int hwThreads = Runtime.getRuntime().availableProcessors();
         if (hwThreads <= 0) hwThreads = 4;
-        int physicalCores = Math.max(1, hwThreads / 2);
-        int[] threadOptionsTemp = {1, physicalCores, hwThreads};
-        int[] threadOptions = Arrays.stream(threadOptionsTemp).distinct().toArray();
+        Options opt = Options.parse(args, hwThreads);
+        int[] sizes = opt.sizes;
+        int[] threadOptions = AutotunedMatrixMultiplier.threadCandidates(hwThreads).stream()
+                .mapToInt(Integer::intValue).toArray();
 
         System.out.println("Detected hardware threads (Java): " + hwThreads);
         System.out.println("Thread configurations to test: " + Arrays.toString(threadOptions));
+        System.out.println("Warmup iterations: " + opt.warmup + ", measured iterations: " + opt.iterations
+                + ", stream parallelism: " + opt.streamParallelism);
         System.out.println();
 
-        try (PrintWriter out = new PrintWriter(new FileWriter("java_results.csv"))) {
+        try (PrintWriter out = new PrintWriter(new FileWriter("java_results.csv"));
+             PrintWriter stats = new PrintWriter(new FileWriter("java_results_stats.csv"));
+             AutotunedMatrixMultiplier auto = new AutotunedMatrixMultiplier();
+             ParallelStreamMatrixMultiplier streamMult = new ParallelStreamMatrixMultiplier(opt.streamParallelism)) {
             writeCsvLine(out,
                     "n,threads," +
-                            "time_basic_ms,time_exec_ms,time_stream_ms," +
-                            "speedup_exec,speedup_stream," +
-                            "eff_exec,eff_stream");
+                            "time_basic_ms,time_exec_ms,time_stream_ms,time_fj_ms,time_auto_ms," +
+                            "speedup_exec,speedup_stream,speedup_fj,speedup_auto," +
+                            "eff_exec,eff_stream,eff_fj,auto_plan");
+            writeCsvLine(stats,
+                    "n,impl,threads,warmup,iterations," +
+                            "median_ms,mean_ms,stddev_ms,p95_ms,min_ms,max_ms,ci95_low_ms,ci95_high_ms," +
+                            "outliers,speedup,efficiency,rel_error,ok");
 
             Random rng = new Random(12345L);
             BasicMatrixMultiplier basic = new BasicMatrixMultiplier();
-            ParallelStreamMatrixMultiplier streamMult = new ParallelStreamMatrixMultiplier();
+            int streamThreads = streamMult.getParallelism();
 
             for (int n : sizes) {
                 System.out.println("===== Matrix size n = " + n + " =====");
                 double[] A = alloc(n);
                 double[] B = alloc(n);
+                double[] ref = alloc(n);
                 double[] C = alloc(n);
                 randomFill(A, n, rng);
                 randomFill(B, n, rng);
 
-                // Basic
-                long t1 = System.nanoTime();
-                basic.multiply(A, B, C, n);
-                long t2 = System.nanoTime();
-                double timeBasic = elapsedMs(t1, t2);
-                System.out.printf("Basic: %.2f ms%n", timeBasic);
-
-                // Parallel Stream
-                t1 = System.nanoTime();
-                streamMult.multiply(A, B, C, n);
-                t2 = System.nanoTime();
-                double timeStream = elapsedMs(t1, t2);
+                // Basic (also produces the reference result)
+                BenchmarkStats basicStats = measure(basic, A, B, ref, n, opt);
+                double timeBasic = basicStats.medianMs();
+                report(stats, n, basic.getName(), 1, basicStats, timeBasic, 0.0, opt);
+
+                // Parallel Stream (pinned pool, so efficiency uses its real parallelism)
+                BenchmarkStats streamStats = measure(streamMult, A, B, C, n, opt);
+                double timeStream = streamStats.medianMs();
                 double speedupStream = timeBasic / timeStream;
-                double effStream = speedupStream / hwThreads;
-                System.out.printf("ParallelStream: %.2f ms (speedup: %.2f, eff ~ %.3f)%n",
-                        timeStream, speedupStream, effStream);
+                double effStream = speedupStream / streamThreads;
+                report(stats, n, streamMult.getName(), streamThreads, streamStats, timeBasic,
+                        relativeError(ref, C), opt);
+
+                // Autotuned (the first call for a size class runs the trials)
+                AutotunedMatrixMultiplier.Plan plan = auto.plan(A, B, C, n);
+                String autoPlan = plan.format().replace(',', ' ');
+                BenchmarkStats autoStats = measure(auto, A, B, C, n, opt);
+                double timeAuto = autoStats.medianMs();
+                double speedupAuto = timeBasic / timeAuto;
+                report(stats, n, "Autotuned[" + autoPlan + "]", plan.threads(), autoStats, timeBasic,
+                        relativeError(ref, C), opt);
 
                 // Executor (for each number of threads)
                 for (int threads : threadOptions) {
                     ExecutorMatrixMultiplier execMult = new ExecutorMatrixMultiplier(threads);
-                    t1 = System.nanoTime();
-                    execMult.multiply(A, B, C, n);
-                    t2 = System.nanoTime();
-                    double timeExec = elapsedMs(t1, t2);
+                    BenchmarkStats execStats = measure(execMult, A, B, C, n, opt);
+                    double timeExec = execStats.medianMs();
                     double speedupExec = timeBasic / timeExec;
                     double effExec = speedupExec / threads;
-                    System.out.printf("%s: %.2f ms (speedup: %.2f, eff: %.3f)%n",
-                            execMult.getName(), timeExec, speedupExec, effExec);
+                    report(stats, n, execMult.getName(), threads, execStats, timeBasic, relativeError(ref, C), opt);
+
+                    // ForkJoin (long-lived pool, reused across warmup and measured iterations)
+                    double timeFj;
+                    try (ForkJoinMatrixMultiplier fjMult = new ForkJoinMatrixMultiplier(threads)) {
+                        BenchmarkStats fjStats = measure(fjMult, A, B, C, n, opt);
+                        timeFj = fjStats.medianMs();
+                        report(stats, n, fjMult.getName(), threads, fjStats, timeBasic, relativeError(ref, C), opt);
+                    }
+                    double speedupFj = timeBasic / timeFj;
+                    double effFj = speedupFj / threads;
+
                     String line = String.format(Locale.ROOT,
-                            "%d,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f",
+                            "%d,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%s",
                             n, threads,
-                            timeBasic, timeExec, timeStream,
-                            speedupExec, speedupStream,
-                            effExec, effStream);
+                            timeBasic, timeExec, timeStream, timeFj, timeAuto,
+                            speedupExec, speedupStream, speedupFj, speedupAuto,
+                            effExec, effStream, effFj, autoPlan);
                     writeCsvLine(out, line);
                 }
                 System.out.println();
             }
-            System.out.println("Results saved in 'java_results.csv'");
+            System.out.println("Results saved in 'java_results.csv' (medians) and 'java_results_stats.csv'");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        runBatchBenchmark(threadOptions, opt);
+        runPrecisionBenchmark(hwThreads, opt);
+    }
+
+    // Float and mixed-precision variants on float inputs, against Basic on the same values in double.
+    private static void runPrecisionBenchmark(int hwThreads, Options opt) {
+        try (PrintWriter out = new PrintWriter(new FileWriter("java_precision_results.csv"));
+             FloatExecutorMatrixMultiplier floatExec = new FloatExecutorMatrixMultiplier(hwThreads)) {
+            List<FloatMatrixMultiplier> variants = List.of(
+                    new FloatBasicMatrixMultiplier(),
+                    floatExec,
+                    new FloatParallelStreamMatrixMultiplier(),
+                    new MixedPrecisionMatrixMultiplier(MixedPrecisionMatrixMultiplier.Accumulation.DOUBLE),
+                    new MixedPrecisionMatrixMultiplier(MixedPrecisionMatrixMultiplier.Accumulation.KAHAN));
+            writeCsvLine(out, "n,impl,median_ms,gflops,speedup_vs_double,max_abs_err,max_rel_err");
+            Random rng = new Random(777L);
+            BasicMatrixMultiplier basic = new BasicMatrixMultiplier();
+
+            for (int n : opt.sizes) {
+                System.out.println("===== Precision, n = " + n + " =====");
+                float[] Af = allocFloat(n);
+                float[] Bf = allocFloat(n);
+                float[] Cf = allocFloat(n);
+                randomFill(Af, n, rng);
+                randomFill(Bf, n, rng);
+                double[] A = alloc(n);
+                double[] B = alloc(n);
+                double[] ref = alloc(n);
+                for (int i = 0; i < A.length; i++) {
+                    A[i] = Af[i];
+                    B[i] = Bf[i];
+                }
+
+                BenchmarkStats base = measure(basic, A, B, ref, n, opt);
+                double refScale = 0.0;
+                for (double v : ref) refScale = Math.max(refScale, Math.abs(v));
+                System.out.printf("Basic (double): %.2f ms, %.2f GFLOP/s%n", base.medianMs(), gflops(n, base.medianMs()));
+                writeCsvLine(out, String.format(Locale.ROOT, "%d,%s,%.4f,%.4f,%.4f,%.3e,%.3e",
+                        n, basic.getName(), base.medianMs(), gflops(n, base.medianMs()), 1.0, 0.0, 0.0));
+
+                for (FloatMatrixMultiplier m : variants) {
+                    Arrays.fill(Cf, Float.NaN);
+                    BenchmarkStats st = measure(() -> m.multiply(Af, Bf, Cf, n), opt);
+                    double maxAbs = 0.0;
+                    for (int i = 0; i < Cf.length; i++) {
+                        double d = Math.abs(Cf[i] - ref[i]);
+                        maxAbs = Double.isNaN(d) ? Double.POSITIVE_INFINITY : Math.max(maxAbs, d);
+                    }
+                    double maxRel = refScale == 0.0 ? maxAbs : maxAbs / refScale;
+                    System.out.printf("%s: %.2f ms, %.2f GFLOP/s, max abs err %.3e%n",
+                            m.getName(), st.medianMs(), gflops(n, st.medianMs()), maxAbs);
+                    writeCsvLine(out, String.format(Locale.ROOT, "%d,%s,%.4f,%.4f,%.4f,%.3e,%.3e",
+                            n, m.getName().replace(',', ';'), st.medianMs(), gflops(n, st.medianMs()),
+                            base.medianMs() / st.medianMs(), maxAbs, maxRel));
+                }
+                System.out.println();
+            }
+            System.out.println("Precision results saved in 'java_precision_results.csv'");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Throughput (matrices/sec) of many small products: one Basic call per item vs one batched call.
+    private static void runBatchBenchmark(int[] threadOptions, Options opt) {
+        int[] batchSizes = {16, 32, 64, 128};
+        try (PrintWriter out = new PrintWriter(new FileWriter("java_batch_results.csv"))) {
+            writeCsvLine(out, "n,count,threads,mps_single,mps_batched,speedup_batched");
+            Random rng = new Random(54321L);
+            BasicMatrixMultiplier basic = new BasicMatrixMultiplier();
+
+            for (int n : batchSizes) {
+                int nn = n * n;
+                int count = Math.max(64, (1 << 20) / nn);
+                System.out.println("===== Batch of " + count + " products, n = " + n + " =====");
+                double[] triples = new double[3 * nn * count];
+                double[][] As = new double[count][nn];
+                double[][] Bs = new double[count][nn];
+                double[] C = alloc(n);
+                for (int item = 0; item < count; item++) {
+                    randomFill(As[item], n, rng);
+                    randomFill(Bs[item], n, rng);
+                    System.arraycopy(As[item], 0, triples, item * 3 * nn, nn);
+                    System.arraycopy(Bs[item], 0, triples, item * 3 * nn + nn, nn);
+                }
+
+                BenchmarkStats single = measure(() -> {
+                    for (int item = 0; item < count; item++) basic.multiply(As[item], Bs[item], C, n);
+                }, opt);
+                double mpsSingle = count / (single.medianMs() / 1000.0);
+                System.out.printf("Basic one at a time: %.0f matrices/s%n", mpsSingle);
+
+                for (int threads : threadOptions) {
+                    double mpsBatched;
+                    try (BatchedMatrixMultiplier batched = new BatchedMatrixMultiplier(threads)) {
+                        BenchmarkStats st = measure(() -> batched.multiplyInterleaved(triples, n, count), opt);
+                        mpsBatched = count / (st.medianMs() / 1000.0);
+                        System.out.printf("%s: %.0f matrices/s (speedup: %.2f)%n",
+                                batched.getName(), mpsBatched, mpsBatched / mpsSingle);
+                    }
+                    writeCsvLine(out, String.format(Locale.ROOT, "%d,%d,%d,%.1f,%.1f,%.4f",
+                            n, count, threads, mpsSingle, mpsBatched, mpsBatched / mpsSingle));
+                }
+                System.out.println();
+            }
+            System.out.println("Batch results saved in 'java_batch_results.csv'");
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,55 @@
+package ulpgc.shared.matrix;
+import java.util.Arrays;
+
+/**
+ * Summary of repeated timings in milliseconds. The 95% confidence interval is for the median and
+ * uses binomial order statistics, so it assumes nothing about the shape of the distribution.
+ * Outliers are samples outside Tukey's fences (1.5 IQR beyond the quartiles).
+ */
+public record BenchmarkStats(int samples, double medianMs, double meanMs, double stddevMs, double p95Ms,
+                             double minMs, double maxMs, double ciLowMs, double ciHighMs, int outliers) {
+
+    public static BenchmarkStats of(double[] timesMs) {
+        if (timesMs.length == 0) {
+            throw new IllegalArgumentException("no samples");
+        }
+        double[] s = timesMs.clone();
+        Arrays.sort(s);
+        int n = s.length;
+
+        double mean = 0.0;
+        for (double v : s) mean += v;
+        mean /= n;
+        double var = 0.0;
+        for (double v : s) var += (v - mean) * (v - mean);
+        double stddev = n > 1 ? Math.sqrt(var / (n - 1)) : 0.0;
+
+        double half = 1.96 * Math.sqrt(n) / 2.0;
+        int lo = Math.max(0, (int) Math.floor(n / 2.0 - half) - 1);
+        int hi = Math.min(n - 1, (int) Math.ceil(n / 2.0 + half));
+
+        double q1 = quantile(s, 0.25);
+        double q3 = quantile(s, 0.75);
+        double iqr = q3 - q1;
+        int outliers = 0;
+        for (double v : s) {
+            if (v < q1 - 1.5 * iqr || v > q3 + 1.5 * iqr) outliers++;
+        }
+
+        return new BenchmarkStats(n, quantile(s, 0.5), mean, stddev, quantile(s, 0.95),
+                s[0], s[n - 1], s[lo], s[hi], outliers);
+    }
+
+    // Linear interpolation between closest ranks; sorted must be ascending.
+    static double quantile(double[] sorted, double q) {
+        double pos = q * (sorted.length - 1);
+        int i = (int) Math.floor(pos);
+        int j = Math.min(sorted.length - 1, i + 1);
+        return sorted[i] + (pos - i) * (sorted[j] - sorted[i]);
+    }
+
+    // CI half-width relative to the median; large values mean the run was too noisy to trust.
+    public double relativeCi() {
+        return medianMs == 0.0 ? 0.0 : (ciHighMs - ciLowMs) / (2.0 * medianMs);
+    }
+}
@@ -0,0 +1,81 @@
+package ulpgc.shared.matrix;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Float version of the executor multiplier: n rows split into numThreads static chunks. The pool is
+ * created once and reused by every multiply, so a timed call does not include thread start-up.
+ */
+public class FloatExecutorMatrixMultiplier implements FloatMatrixMultiplier, AutoCloseable {
+    private final int numThreads;
+    // null when numThreads <= 1; multiply then runs on the caller's thread.
+    private final ExecutorService pool;
+
+    public FloatExecutorMatrixMultiplier(int numThreads) {
+        this.numThreads = numThreads;
+        this.pool = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    @Override
+    public String getName() {
+        return "FloatExecutor(" + numThreads + " threads)";
+    }
+
+    @Override
+    public void multiply(float[] A, float[] B, float[] C, int n) {
+        if (pool == null) {
+            new FloatBasicMatrixMultiplier().multiply(A, B, C, n);
+            return;
+        }
+        Arrays.fill(C, 0.0f);
+        List<Callable<Void>> tasks = new ArrayList<>(numThreads);
+        int rowsPerTask = n / numThreads;
+        int extra = n % numThreads;
+        int currentRow = 0;
+        for (int t = 0; t < numThreads; t++) {
+            final int rowStart = currentRow;
+            final int rowEnd = rowStart + rowsPerTask + (t < extra ? 1 : 0);
+            currentRow = rowEnd;
+            tasks.add(() -> {
+                multiplyRows(A, B, C, n, rowStart, rowEnd);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("row task failed", e.getCause());
+        }
+    }
+
+    private static void multiplyRows(float[] A, float[] B, float[] C, int n, int rowStart, int rowEnd) {
+        for (int i = rowStart; i < rowEnd; i++) {
+            int baseAi = i * n;
+            int baseCi = i * n;
+            for (int k = 0; k < n; k++) {
+                float aik = A[baseAi + k];
+                int baseBk = k * n;
+                for (int j = 0; j < n; j++) {
+                    C[baseCi + j] += aik * B[baseBk + j];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ulpgc.shared.matrix;
+
+public interface FloatMatrixMultiplier {
+    String getName();
+
+    void multiply(float[] A, float[] B, float[] C, int n);
+}
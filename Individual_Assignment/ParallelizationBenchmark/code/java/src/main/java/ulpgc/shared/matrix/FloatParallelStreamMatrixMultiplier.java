@@ -0,0 +1,26 @@
+package ulpgc.shared.matrix;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class FloatParallelStreamMatrixMultiplier implements FloatMatrixMultiplier {
+    @Override
+    public String getName() {
+        return "FloatParallelStream";
+    }
+
+    @Override
+    public void multiply(float[] A, float[] B, float[] C, int n) {
+        Arrays.fill(C, 0.0f);
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int baseAi = i * n;
+            int baseCi = i * n;
+            for (int k = 0; k < n; k++) {
+                float aik = A[baseAi + k];
+                int baseBk = k * n;
+                for (int j = 0; j < n; j++) {
+                    C[baseCi + j] += aik * B[baseBk + j];
+                }
+            }
+        });
+    }
+}
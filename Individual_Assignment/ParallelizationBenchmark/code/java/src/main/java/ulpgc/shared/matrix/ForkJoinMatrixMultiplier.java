@@ -0,0 +1,109 @@
+package ulpgc.shared.matrix;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ForkJoinMatrixMultiplier implements MatrixMultiplier, AutoCloseable {
+    public static final int DEFAULT_TILE_ROWS = 32;
+    public static final int DEFAULT_TILE_COLS = 256;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int tileRows;
+    private final int tileCols;
+
+    public ForkJoinMatrixMultiplier(int numThreads) {
+        this(new ForkJoinPool(Math.max(1, numThreads)), true, DEFAULT_TILE_ROWS, DEFAULT_TILE_COLS);
+    }
+
+    public ForkJoinMatrixMultiplier(int numThreads, int tileRows, int tileCols) {
+        this(new ForkJoinPool(Math.max(1, numThreads)), true, tileRows, tileCols);
+    }
+
+    public ForkJoinMatrixMultiplier(ForkJoinPool pool, int tileRows, int tileCols) {
+        this(pool, false, tileRows, tileCols);
+    }
+
+    private ForkJoinMatrixMultiplier(ForkJoinPool pool, boolean ownsPool, int tileRows, int tileCols) {
+        if (tileRows <= 0 || tileCols <= 0) {
+            throw new IllegalArgumentException("tile sizes must be positive");
+        }
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.tileRows = tileRows;
+        this.tileCols = tileCols;
+    }
+
+    public int getNumThreads() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public String getName() {
+        return "ForkJoin(" + pool.getParallelism() + " threads, tile " + tileRows + "x" + tileCols + ")";
+    }
+
+    @Override
+    public void multiply(double[] A, double[] B, double[] C, int n) {
+        pool.invoke(new TileTask(A, B, C, n, 0, n, 0, n));
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    // Computes C[rowStart..rowEnd) x [colStart..colEnd), splitting the longer side until it
+    // fits one tile; idle workers steal the pending halves.
+    private final class TileTask extends RecursiveAction {
+        private final double[] A, B, C;
+        private final int n, rowStart, rowEnd, colStart, colEnd;
+
+        TileTask(double[] A, double[] B, double[] C, int n,
+                 int rowStart, int rowEnd, int colStart, int colEnd) {
+            this.A = A;
+            this.B = B;
+            this.C = C;
+            this.n = n;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.colStart = colStart;
+            this.colEnd = colEnd;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = rowEnd - rowStart;
+            int cols = colEnd - colStart;
+            if (rows <= tileRows && cols <= tileCols) {
+                multiplyTile();
+            } else if (rows * tileCols >= cols * tileRows) {
+                int mid = rowStart + rows / 2;
+                invokeAll(new TileTask(A, B, C, n, rowStart, mid, colStart, colEnd),
+                        new TileTask(A, B, C, n, mid, rowEnd, colStart, colEnd));
+            } else {
+                int mid = colStart + cols / 2;
+                invokeAll(new TileTask(A, B, C, n, rowStart, rowEnd, colStart, mid),
+                        new TileTask(A, B, C, n, rowStart, rowEnd, mid, colEnd));
+            }
+        }
+
+        private void multiplyTile() {
+            for (int i = rowStart; i < rowEnd; i++) {
+                int baseAi = i * n;
+                int baseCi = i * n;
+                for (int j = colStart; j < colEnd; j++) {
+                    C[baseCi + j] = 0.0;
+                }
+                for (int k = 0; k < n; k++) {
+                    double aik = A[baseAi + k];
+                    int baseBk = k * n;
+                    for (int j = colStart; j < colEnd; j++) {
+                        C[baseCi + j] += aik * B[baseBk + j];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ulpgc.shared.matrix;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * n x n row-major matrix of native-order doubles stored in a file. The file is memory-mapped in
+ * row-aligned chunks of at most 1 GB (a single mapping cannot exceed 2 GB), so only the pages that
+ * are touched occupy memory and none of it is Java heap. Tile reads and writes use absolute buffer
+ * operations only, so threads may work on disjoint tiles concurrently.
+ */
+public final class MappedMatrix implements AutoCloseable {
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    public final int n;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final DoubleBuffer[] views;
+    private final int rowsPerChunk;
+
+    private MappedMatrix(Path file, int n, boolean create) throws IOException {
+        this.n = n;
+        long rowBytes = (long) n * Double.BYTES;
+        if (rowBytes > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("row of " + n + " doubles does not fit one mapping");
+        }
+        this.channel = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = rowBytes * n;
+        if (!create && channel.size() != size) {
+            channel.close();
+            throw new IllegalArgumentException(file + " holds " + channel.size() + " bytes, expected " + size);
+        }
+        this.rowsPerChunk = (int) Math.min(n, MAX_CHUNK_BYTES / rowBytes);
+        int count = (n + rowsPerChunk - 1) / rowsPerChunk;
+        this.chunks = new MappedByteBuffer[count];
+        this.views = new DoubleBuffer[count];
+        for (int c = 0; c < count; c++) {
+            long firstRow = (long) c * rowsPerChunk;
+            long rows = Math.min(rowsPerChunk, n - firstRow);
+            chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, firstRow * rowBytes, rows * rowBytes);
+            chunks[c].order(ByteOrder.nativeOrder());
+            views[c] = chunks[c].asDoubleBuffer();
+        }
+    }
+
+    public static MappedMatrix create(Path file, int n) throws IOException {
+        return new MappedMatrix(file, n, true);
+    }
+
+    public static MappedMatrix open(Path file, int n) throws IOException {
+        return new MappedMatrix(file, n, false);
+    }
+
+    public long sizeBytes() {
+        return (long) n * n * Double.BYTES;
+    }
+
+    // dst[r * w + c] = M[r0 + r][c0 + c] for an h x w tile
+    public void readTile(int r0, int c0, int h, int w, double[] dst) {
+        for (int r = 0; r < h; r++) {
+            int row = r0 + r;
+            views[row / rowsPerChunk].get((row % rowsPerChunk) * n + c0, dst, r * w, w);
+        }
+    }
+
+    public void writeTile(int r0, int c0, int h, int w, double[] src) {
+        for (int r = 0; r < h; r++) {
+            int row = r0 + r;
+            views[row / rowsPerChunk].put((row % rowsPerChunk) * n + c0, src, r * w, w);
+        }
+    }
+
+    public void fillRandom(Random rng) {
+        double[] row = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                row[j] = rng.nextDouble();
+            }
+            writeTile(i, 0, 1, n, row);
+        }
+    }
+
+    public void flush() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -16,6 +16,21 @@ public final class MatrixUtils {
         }
     }
 
+    public static float[] allocFloat(int n) {
+        return new float[n * n];
+    }
+
+    public static void randomFill(float[] m, int n, Random rng) {
+        int total = n * n;
+        for (int i = 0; i < total; i++) {
+            m[i] = rng.nextFloat();
+        }
+    }
+
+    public static double gflops(int n, double ms) {
+        return 2.0 * n * n * (double) n / (ms * 1_000_000.0);
+    }
+
     public static double elapsedMs(long startNs, long endNs) {
         return (endNs - startNs) / 1_000_000.0;
     }
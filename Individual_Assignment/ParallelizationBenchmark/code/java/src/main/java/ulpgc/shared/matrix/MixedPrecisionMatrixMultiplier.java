@@ -0,0 +1,71 @@
+package ulpgc.shared.matrix;
+import java.util.Arrays;
+
+/**
+ * Float storage with a wider accumulator: each row of C is built in a scratch row (double, or
+ * float with a Kahan compensation term) and rounded to float once at the end.
+ */
+public class MixedPrecisionMatrixMultiplier implements FloatMatrixMultiplier {
+    public enum Accumulation { DOUBLE, KAHAN }
+
+    private final Accumulation accumulation;
+
+    public MixedPrecisionMatrixMultiplier(Accumulation accumulation) {
+        this.accumulation = accumulation;
+    }
+
+    @Override
+    public String getName() {
+        return accumulation == Accumulation.DOUBLE ? "MixedDoubleAcc" : "MixedKahan";
+    }
+
+    @Override
+    public void multiply(float[] A, float[] B, float[] C, int n) {
+        if (accumulation == Accumulation.DOUBLE) {
+            multiplyDoubleAcc(A, B, C, n);
+        } else {
+            multiplyKahan(A, B, C, n);
+        }
+    }
+
+    private static void multiplyDoubleAcc(float[] A, float[] B, float[] C, int n) {
+        double[] acc = new double[n];
+        for (int i = 0; i < n; i++) {
+            int baseAi = i * n;
+            int baseCi = i * n;
+            Arrays.fill(acc, 0.0);
+            for (int k = 0; k < n; k++) {
+                double aik = A[baseAi + k];
+                int baseBk = k * n;
+                for (int j = 0; j < n; j++) {
+                    acc[j] += aik * B[baseBk + j];
+                }
+            }
+            for (int j = 0; j < n; j++) {
+                C[baseCi + j] = (float) acc[j];
+            }
+        }
+    }
+
+    private static void multiplyKahan(float[] A, float[] B, float[] C, int n) {
+        float[] sum = new float[n];
+        float[] comp = new float[n];
+        for (int i = 0; i < n; i++) {
+            int baseAi = i * n;
+            int baseCi = i * n;
+            Arrays.fill(sum, 0.0f);
+            Arrays.fill(comp, 0.0f);
+            for (int k = 0; k < n; k++) {
+                float aik = A[baseAi + k];
+                int baseBk = k * n;
+                for (int j = 0; j < n; j++) {
+                    float y = aik * B[baseBk + j] - comp[j];
+                    float t = sum[j] + y;
+                    comp[j] = (t - sum[j]) - y;
+                    sum[j] = t;
+                }
+            }
+            System.arraycopy(sum, 0, C, baseCi, n);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ulpgc.shared.matrix;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import static ulpgc.shared.matrix.MatrixUtils.*;
+
+/**
+ * Effective GFLOP/s of OutOfCoreMatrixMultiplier next to the I/O rate it needs.
+ * Usage: OutOfCoreBenchmark [n,n,...] [tile] [threads] [dataDir]
+ * Matrices are generated into dataDir (3 * n^2 * 8 bytes) and deleted afterwards.
+ * For n <= 1024 the result is also checked against BasicMatrixMultiplier.
+ */
+public class OutOfCoreBenchmark {
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1024, 2048, 4096};
+        int tile = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Path dir = Paths.get(args.length > 3 ? args[3] : "ooc_data");
+        Files.createDirectories(dir);
+
+        try (PrintWriter out = new PrintWriter(new FileWriter("java_ooc_results.csv"));
+             OutOfCoreMatrixMultiplier ooc = new OutOfCoreMatrixMultiplier(tile, threads)) {
+            out.println("n,tile,threads,file_bytes,working_set_bytes,time_ms,gflops,read_mb_s,write_mb_s,rel_error");
+            System.out.println(ooc.getName() + ", heap working set " + ooc.workingSetBytes() / (1 << 20) + " MB");
+            Random rng = new Random(12345L);
+
+            for (int n : sizes) {
+                Path fa = dir.resolve("A_" + n + ".bin");
+                Path fb = dir.resolve("B_" + n + ".bin");
+                Path fc = dir.resolve("C_" + n + ".bin");
+                try (MappedMatrix A = MappedMatrix.create(fa, n);
+                     MappedMatrix B = MappedMatrix.create(fb, n);
+                     MappedMatrix C = MappedMatrix.create(fc, n)) {
+                    A.fillRandom(rng);
+                    B.fillRandom(rng);
+                    A.flush();
+                    B.flush();
+
+                    long read0 = ooc.getBytesRead();
+                    long written0 = ooc.getBytesWritten();
+                    long t1 = System.nanoTime();
+                    ooc.multiply(A, B, C);
+                    long t2 = System.nanoTime();
+                    double ms = elapsedMs(t1, t2);
+                    double readMbs = (ooc.getBytesRead() - read0) / 1e6 / (ms / 1000.0);
+                    double writeMbs = (ooc.getBytesWritten() - written0) / 1e6 / (ms / 1000.0);
+                    double err = n <= 1024 ? check(A, B, C, n) : Double.NaN;
+
+                    System.out.printf("n=%d: %.2f ms, %.2f GFLOP/s, read %.1f MB/s, write %.1f MB/s%s%n",
+                            n, ms, gflops(n, ms), readMbs, writeMbs,
+                            Double.isNaN(err) ? "" : String.format(Locale.ROOT, ", rel err %.2e", err));
+                    out.println(String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%.4f,%.4f,%.2f,%.2f,%.3e",
+                            n, tile, threads, A.sizeBytes(), ooc.workingSetBytes(),
+                            ms, gflops(n, ms), readMbs, writeMbs, err));
+                } finally {
+                    Files.deleteIfExists(fa);
+                    Files.deleteIfExists(fb);
+                    Files.deleteIfExists(fc);
+                }
+            }
+            System.out.println("Results saved in 'java_ooc_results.csv'");
+        }
+    }
+
+    private static double check(MappedMatrix A, MappedMatrix B, MappedMatrix C, int n) {
+        double[] a = alloc(n), b = alloc(n), c = alloc(n), ref = alloc(n);
+        A.readTile(0, 0, n, n, a);
+        B.readTile(0, 0, n, n, b);
+        C.readTile(0, 0, n, n, c);
+        new BasicMatrixMultiplier().multiply(a, b, ref, n);
+        double diff = 0.0, scale = 0.0;
+        for (int i = 0; i < ref.length; i++) {
+            diff = Math.max(diff, Math.abs(c[i] - ref[i]));
+            scale = Math.max(scale, Math.abs(ref[i]));
+        }
+        return scale == 0.0 ? diff : diff / scale;
+    }
+}
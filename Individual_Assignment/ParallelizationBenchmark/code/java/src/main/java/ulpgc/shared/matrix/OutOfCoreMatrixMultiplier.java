@@ -0,0 +1,91 @@
+package ulpgc.shared.matrix;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * C = A * B for file-backed matrices. Each worker owns one C tile at a time: it streams the
+ * matching row of A tiles and column of B tiles through two tile buffers, accumulates into a
+ * third, and writes the finished C tile back. The heap working set is therefore
+ * 3 * tile^2 doubles per thread, independent of n.
+ */
+public class OutOfCoreMatrixMultiplier implements AutoCloseable {
+    private final int tile;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<double[][]> buffers;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    public OutOfCoreMatrixMultiplier(int tile, int numThreads) {
+        if (tile <= 0) {
+            throw new IllegalArgumentException("tile must be positive");
+        }
+        this.tile = tile;
+        this.pool = new ForkJoinPool(Math.max(1, numThreads));
+        this.buffers = ThreadLocal.withInitial(() -> new double[][]{
+                new double[tile * tile], new double[tile * tile], new double[tile * tile]});
+    }
+
+    public String getName() {
+        return "OutOfCore(" + pool.getParallelism() + " threads, tile " + tile + ")";
+    }
+
+    public long workingSetBytes() {
+        return 3L * tile * tile * Double.BYTES * pool.getParallelism();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public void multiply(MappedMatrix A, MappedMatrix B, MappedMatrix C) {
+        int n = A.n;
+        if (B.n != n || C.n != n) {
+            throw new IllegalArgumentException("matrices must have the same size");
+        }
+        int tilesPerSide = (n + tile - 1) / tile;
+        pool.submit(() -> IntStream.range(0, tilesPerSide * tilesPerSide).parallel().forEach(t -> {
+            int i0 = (t / tilesPerSide) * tile;
+            int j0 = (t % tilesPerSide) * tile;
+            multiplyTile(A, B, C, n, i0, j0);
+        })).join();
+        C.flush();
+    }
+
+    private void multiplyTile(MappedMatrix A, MappedMatrix B, MappedMatrix C, int n, int i0, int j0) {
+        double[][] buf = buffers.get();
+        double[] a = buf[0], b = buf[1], c = buf[2];
+        int h = Math.min(tile, n - i0);
+        int w = Math.min(tile, n - j0);
+        Arrays.fill(c, 0, h * w, 0.0);
+        for (int k0 = 0; k0 < n; k0 += tile) {
+            int d = Math.min(tile, n - k0);
+            A.readTile(i0, k0, h, d, a);
+            B.readTile(k0, j0, d, w, b);
+            bytesRead.addAndGet((long) (h * d + d * w) * Double.BYTES);
+            for (int i = 0; i < h; i++) {
+                int baseAi = i * d;
+                int baseCi = i * w;
+                for (int k = 0; k < d; k++) {
+                    double aik = a[baseAi + k];
+                    int baseBk = k * w;
+                    for (int j = 0; j < w; j++) {
+                        c[baseCi + j] += aik * b[baseBk + j];
+                    }
+                }
+            }
+        }
+        C.writeTile(i0, j0, h, w, c);
+        bytesWritten.addAndGet((long) h * w * Double.BYTES);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -1,15 +1,39 @@
 package ulpgc.shared.matrix;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.IntStream;
 
-public class ParallelStreamMatrixMultiplier implements MatrixMultiplier {
+public class ParallelStreamMatrixMultiplier implements MatrixMultiplier, AutoCloseable {
+    // null means the common pool; a parallel stream started inside a pool's task runs in that pool.
+    private final ForkJoinPool pool;
+
+    public ParallelStreamMatrixMultiplier() {
+        this.pool = null;
+    }
+
+    public ParallelStreamMatrixMultiplier(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public int getParallelism() {
+        return pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
     @Override
     public String getName() {
-        return "ParallelStream";
+        return pool != null ? "ParallelStream(" + pool.getParallelism() + " threads)" : "ParallelStream";
     }
 
     @Override
     public void multiply(double[] A, double[] B, double[] C, int n) {
+        if (pool != null) {
+            pool.submit(() -> multiplyRows(A, B, C, n)).join();
+        } else {
+            multiplyRows(A, B, C, n);
+        }
+    }
+
+    private static void multiplyRows(double[] A, double[] B, double[] C, int n) {
         Arrays.fill(C, 0.0);
         IntStream.range(0, n).parallel().forEach(i -> {
             int baseAi = i * n;
@@ -23,4 +47,11 @@ public class ParallelStreamMatrixMultiplier implements MatrixMultiplier {
             }
         });
     }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
 }
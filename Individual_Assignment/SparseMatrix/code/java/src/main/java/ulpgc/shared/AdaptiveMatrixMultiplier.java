@@ -0,0 +1,176 @@
+package ulpgc.shared;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * multiply(A, B) for dense double[][] inputs that picks matmulBasic, matmulBlocked or the CSR
+ * kernel from the density of A. Density is counted exactly for small matrices and estimated
+ * from SAMPLE_CELLS random cells otherwise. The crossover density per size comes from a
+ * calibration run of BenchmarkRunner.runBenchmarkCase, where the CSR path is charged its
+ * fromDense conversion as well, and can be stored as a properties file. matmulBlocked is
+ * multithreaded, so the CSR side is calibrated and run with multiplyDenseParallel; otherwise the
+ * crossover would move with the core count rather than the density. The Decision of the most
+ * recent call is kept for reporting. Instances are safe to share between threads: thresholds are
+ * fixed after construction and sampling uses ThreadLocalRandom.
+ */
+public class AdaptiveMatrixMultiplier {
+    public enum Kernel { BASIC, BLOCKED, CSR }
+
+    // Below sparseBelow the CSR path (conversion included) won the calibration at this size.
+    public record Threshold(int n, double sparseBelow, Kernel denseKernel) {
+    }
+
+    public record Decision(int n, double sampledDensity, double threshold, Kernel kernel,
+                           double timeConvert, double timeMultiply) {
+        public String toCsvLine() {
+            return String.format("%d,%.6f,%.6f,%s,%.6f,%.6f",
+                    n, sampledDensity, threshold, kernel, timeConvert, timeMultiply);
+        }
+    }
+
+    public static final int SAMPLE_CELLS = 1 << 16;
+    // Used for sizes when no calibration is available.
+    private static final Threshold DEFAULT_THRESHOLD = new Threshold(0, 0.05, Kernel.BLOCKED);
+
+    private final TreeMap<Integer, Threshold> thresholds;
+    private final int l1Block;
+    private final int l2Block;
+    private volatile Decision lastDecision;
+
+    public AdaptiveMatrixMultiplier(Collection<Threshold> thresholds, int l1Block, int l2Block) {
+        this.thresholds = new TreeMap<>();
+        for (Threshold t : thresholds) {
+            this.thresholds.put(t.n(), t);
+        }
+        this.l1Block = l1Block;
+        this.l2Block = l2Block;
+    }
+
+    /**
+     * For each size: the fastest kernel at every measured density, then the crossover placed at
+     * the geometric mean of the densest CSR win and the next denser point where CSR lost.
+     */
+    public static AdaptiveMatrixMultiplier calibrate(List<BenchmarkResult> results, int l1Block, int l2Block) {
+        Map<Integer, List<BenchmarkResult>> bySize = new TreeMap<>();
+        for (BenchmarkResult r : results) {
+            bySize.computeIfAbsent(r.getN(), k -> new ArrayList<>()).add(r);
+        }
+        List<Threshold> out = new ArrayList<>();
+        for (Map.Entry<Integer, List<BenchmarkResult>> e : bySize.entrySet()) {
+            List<BenchmarkResult> rs = e.getValue();
+            rs.sort(Comparator.comparingDouble(BenchmarkResult::getInputDensity));
+            double sparseBelow = 0.0;
+            for (int i = 0; i < rs.size(); i++) {
+                BenchmarkResult r = rs.get(i);
+                double dense = Math.min(r.getTimeBasic(), r.getTimeBlocked());
+                if (r.getTimeSparsePar() + r.getTimeToCsr() < dense) {
+                    sparseBelow = i + 1 < rs.size()
+                            ? Math.sqrt(r.getInputDensity() * rs.get(i + 1).getInputDensity())
+                            : Double.POSITIVE_INFINITY;
+                }
+            }
+            BenchmarkResult densest = rs.get(rs.size() - 1);
+            Kernel denseKernel = densest.getTimeBasic() <= densest.getTimeBlocked() ? Kernel.BASIC : Kernel.BLOCKED;
+            out.add(new Threshold(e.getKey(), sparseBelow, denseKernel));
+        }
+        return new AdaptiveMatrixMultiplier(out, l1Block, l2Block);
+    }
+
+    public static AdaptiveMatrixMultiplier load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file)) {
+            props.load(r);
+        }
+        int l1Block = Integer.parseInt(props.getProperty("l1Block", "32"));
+        int l2Block = Integer.parseInt(props.getProperty("l2Block", "256"));
+        List<Threshold> list = new ArrayList<>();
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith("n.")) continue;
+            String[] f = props.getProperty(key).split(",");
+            list.add(new Threshold(Integer.parseInt(key.substring(2)), Double.parseDouble(f[0]), Kernel.valueOf(f[1])));
+        }
+        return new AdaptiveMatrixMultiplier(list, l1Block, l2Block);
+    }
+
+    public void save(Path file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("l1Block", String.valueOf(l1Block));
+        props.setProperty("l2Block", String.valueOf(l2Block));
+        for (Threshold t : thresholds.values()) {
+            props.setProperty("n." + t.n(), t.sparseBelow() + "," + t.denseKernel());
+        }
+        try (Writer w = Files.newBufferedWriter(file)) {
+            props.store(w, "sparseBelow,denseKernel per calibrated size");
+        }
+    }
+
+    public Collection<Threshold> getThresholds() {
+        return Collections.unmodifiableCollection(thresholds.values());
+    }
+
+    // With concurrent callers this is whichever call finished last.
+    public Decision lastDecision() {
+        return lastDecision;
+    }
+
+    public double[][] multiply(double[][] A, double[][] B) {
+        int n = A.length;
+        double density = sampleDensity(A);
+        Threshold t = thresholdFor(n);
+        Kernel kernel = density < t.sparseBelow() ? Kernel.CSR : t.denseKernel();
+
+        double timeConvert = 0.0;
+        double[][] C;
+        long t0 = System.nanoTime();
+        switch (kernel) {
+            case CSR -> {
+                SparseMatrixCSR csr = SparseMatrixCSR.fromDense(A, 1e-12);
+                long t1 = System.nanoTime();
+                timeConvert = (t1 - t0) / 1e9;
+                t0 = t1;
+                C = csr.multiplyDenseParallel(B);
+            }
+            case BASIC -> C = DenseMatrix.matmulBasic(A, B);
+            default -> C = DenseMatrix.matmulBlocked(A, B, l1Block, l2Block);
+        }
+        double timeMultiply = (System.nanoTime() - t0) / 1e9;
+        lastDecision = new Decision(n, density, t.sparseBelow(), kernel, timeConvert, timeMultiply);
+        return C;
+    }
+
+    // Calibrated size closest to n on a log scale.
+    Threshold thresholdFor(int n) {
+        Map.Entry<Integer, Threshold> lo = thresholds.floorEntry(n);
+        Map.Entry<Integer, Threshold> hi = thresholds.ceilingEntry(n);
+        if (lo == null && hi == null) return DEFAULT_THRESHOLD;
+        if (lo == null) return hi.getValue();
+        if (hi == null) return lo.getValue();
+        return Math.log(n) - Math.log(lo.getKey()) <= Math.log(hi.getKey()) - Math.log(n) ? lo.getValue() : hi.getValue();
+    }
+
+    double sampleDensity(double[][] A) {
+        int n = A.length;
+        if (n == 0) return 0.0;
+        long cells = (long) n * n;
+        int count = 0;
+        if (cells <= SAMPLE_CELLS) {
+            for (double[] row : A) {
+                for (double v : row) {
+                    if (v != 0.0) count++;
+                }
+            }
+            return count / (double) cells;
+        }
+        ThreadLocalRandom sampler = ThreadLocalRandom.current();
+        for (int s = 0; s < SAMPLE_CELLS; s++) {
+            if (A[sampler.nextInt(n)][sampler.nextInt(n)] != 0.0) count++;
+        }
+        return count / (double) SAMPLE_CELLS;
+    }
+}
@@ -7,19 +7,58 @@ public class BenchmarkResult {
     private final double timeBasic;
     private final double timeBlocked;
     private final double timeSparse;
+    private final double timeSparsePar;
+    private final double timeSparseMp;
+    private final double timeSpgemm;
+    private final double timeToCsr;
 
     public BenchmarkResult(int n, double inputDensity, double nnzDensity,
-                           double timeBasic, double timeBlocked, double timeSparse) {
+                           double timeBasic, double timeBlocked, double timeSparse,
+                           double timeSparsePar, double timeSparseMp, double timeSpgemm,
+                           double timeToCsr) {
         this.n = n;
         this.inputDensity = inputDensity;
         this.nnzDensity = nnzDensity;
         this.timeBasic = timeBasic;
         this.timeBlocked = timeBlocked;
         this.timeSparse = timeSparse;
+        this.timeSparsePar = timeSparsePar;
+        this.timeSparseMp = timeSparseMp;
+        this.timeSpgemm = timeSpgemm;
+        this.timeToCsr = timeToCsr;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public double getInputDensity() {
+        return inputDensity;
+    }
+
+    public double getTimeBasic() {
+        return timeBasic;
+    }
+
+    public double getTimeBlocked() {
+        return timeBlocked;
+    }
+
+    public double getTimeSparse() {
+        return timeSparse;
+    }
+
+    public double getTimeSparsePar() {
+        return timeSparsePar;
+    }
+
+    public double getTimeToCsr() {
+        return timeToCsr;
     }
 
     public String toCsvLine() {
-        return String.format("%d,%.6f,%.6f,%.6f,%.6f,%.6f",
-                n, inputDensity, nnzDensity, timeBasic, timeBlocked, timeSparse);
+        return String.format("%d,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f",
+                n, inputDensity, nnzDensity, timeBasic, timeBlocked, timeSparse, timeSparsePar, timeSparseMp,
+                timeSpgemm, timeToCsr);
     }
 }
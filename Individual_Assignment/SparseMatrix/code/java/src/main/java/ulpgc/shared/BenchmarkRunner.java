@@ -1,5 +1,10 @@
 package ulpgc.shared;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 public class BenchmarkRunner {
@@ -9,7 +14,7 @@ public class BenchmarkRunner {
         this.rng = new Random(seed);
     }
 
-    public BenchmarkResult runBenchmarkCase(int n, double density, int blockSize) {
+    public BenchmarkResult runBenchmarkCase(int n, double density, int l1Block, int l2Block) {
         double[][] A = DenseMatrix.randomDenseMatrix(rng, n, density);
         double[][] B = DenseMatrix.randomDenseMatrix(rng, n, density);
         long t0 = System.nanoTime();
@@ -18,14 +23,18 @@ public class BenchmarkRunner {
         double timeBasic = (t1 - t0) / 1e9;
 
         t0 = System.nanoTime();
-        double[][] Cblocked = DenseMatrix.matmulBlocked(A, B, blockSize);
+        double[][] Cblocked = DenseMatrix.matmulBlocked(A, B, l1Block, l2Block);
         t1 = System.nanoTime();
         double timeBlocked = (t1 - t0) / 1e9;
         if (n <= 256 && !DenseMatrix.equalDense(Cbasic, Cblocked, 1e-8)) {
             System.err.printf("Warning: C_basic and C_blocked differ for n=%d%n", n);
         }
 
+        t0 = System.nanoTime();
         SparseMatrixCSR csr = SparseMatrixCSR.fromDense(A, 1e-12);
+        t1 = System.nanoTime();
+        double timeToCsr = (t1 - t0) / 1e9;
+
         t0 = System.nanoTime();
         double[][] Csparse = csr.multiplyDense(B);
         t1 = System.nanoTime();
@@ -34,6 +43,31 @@ public class BenchmarkRunner {
             System.err.printf("Warning: C_basic and C_sparse differ for n=%d%n", n);
         }
 
+        t0 = System.nanoTime();
+        double[][] CsparsePar = csr.multiplyDenseParallel(B);
+        t1 = System.nanoTime();
+        double timeSparsePar = (t1 - t0) / 1e9;
+        if (n <= 256 && !DenseMatrix.equalDense(Csparse, CsparsePar, 1e-8)) {
+            System.err.printf("Warning: C_sparse and C_sparse_par differ for n=%d%n", n);
+        }
+
+        t0 = System.nanoTime();
+        double[][] CsparseMp = csr.multiplyDenseParallel(B, 4 * Runtime.getRuntime().availableProcessors(), true);
+        t1 = System.nanoTime();
+        double timeSparseMp = (t1 - t0) / 1e9;
+        if (n <= 256 && !DenseMatrix.equalDense(Csparse, CsparseMp, 1e-8)) {
+            System.err.printf("Warning: C_sparse and C_sparse_mp differ for n=%d%n", n);
+        }
+
+        SparseMatrixCSR csrB = SparseMatrixCSR.fromDense(B, 1e-12);
+        t0 = System.nanoTime();
+        SparseMatrixCSR Cspgemm = csr.multiplySparse(csrB);
+        t1 = System.nanoTime();
+        double timeSpgemm = (t1 - t0) / 1e9;
+        if (n <= 256 && !DenseMatrix.equalDense(Csparse, Cspgemm.toDense(), 1e-8)) {
+            System.err.printf("Warning: C_sparse and C_spgemm differ for n=%d%n", n);
+        }
+
         double nnzDensity = csr.nnz / (double) (n * n);
         return new BenchmarkResult(
                 n,
@@ -41,7 +75,295 @@ public class BenchmarkRunner {
                 nnzDensity,
                 timeBasic,
                 timeBlocked,
-                timeSparse
+                timeSparse,
+                timeSparsePar,
+                timeSparseMp,
+                timeSpgemm,
+                timeToCsr
         );
     }
+
+    // Best-of-reps time of matmulBlocked on a dense n x n product, for sweeping the block pair.
+    public double runBlockedCase(int n, int l1Block, int l2Block, int reps) {
+        double[][] A = DenseMatrix.randomDenseMatrix(rng, n, 1.0);
+        double[][] B = DenseMatrix.randomDenseMatrix(rng, n, 1.0);
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < reps; r++) {
+            long t0 = System.nanoTime();
+            DenseMatrix.matmulBlocked(A, B, l1Block, l2Block);
+            long t1 = System.nanoTime();
+            best = Math.min(best, (t1 - t0) / 1e9);
+        }
+        return best;
+    }
+
+    /**
+     * Sparse-only case that never allocates an n x n array: A comes from the O(nnz) generator,
+     * B from unsorted random triplets (duplicates included) through CooMatrixBuilder.
+     */
+    public SparseBenchmarkResult runSparseCase(int n, int nnzPerRow) {
+        double density = Math.min(1.0, nnzPerRow / (double) n);
+        long t0 = System.nanoTime();
+        SparseMatrixCSR A = SparseMatrixCSR.randomSparse(rng, n, density);
+        long t1 = System.nanoTime();
+        double timeGenerate = (t1 - t0) / 1e9;
+
+        long triplets = (long) n * nnzPerRow;
+        CooMatrixBuilder coo = new CooMatrixBuilder(n, (int) triplets);
+        for (long e = 0; e < triplets; e++) {
+            coo.add(rng.nextInt(n), rng.nextInt(n), rng.nextDouble());
+        }
+        t0 = System.nanoTime();
+        SparseMatrixCSR B = coo.build();
+        t1 = System.nanoTime();
+        double timeCooBuild = (t1 - t0) / 1e9;
+
+        t0 = System.nanoTime();
+        SparseMatrixCSR C = A.multiplySparse(B);
+        t1 = System.nanoTime();
+        double timeSpgemm = (t1 - t0) / 1e9;
+
+        return new SparseBenchmarkResult(n, nnzPerRow, A.nnz, B.nnz, C.nnz, timeGenerate, timeCooBuild, timeSpgemm);
+    }
+
+    /**
+     * Times multiplyDense (B is n x m) and multiplyVector for every format on one structured
+     * matrix, and records which format the analyzer picked versus which was fastest for SpMM.
+     * kind is one of random, banded, block, powerlaw.
+     */
+    public FormatBenchmarkResult runFormatCase(String kind, int n, int m) {
+        SparseMatrixCSR csr = structuredSparse(kind, n);
+        double[][] B = new double[n][m];
+        for (double[] row : B) {
+            for (int j = 0; j < m; j++) row[j] = rng.nextDouble();
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = rng.nextDouble();
+
+        SparseFormatAnalyzer.Format[] formats = SparseFormatAnalyzer.Format.values();
+        double[] timeSpmm = new double[formats.length];
+        double[] timeSpmv = new double[formats.length];
+        double[][] Cref = csr.multiplyDense(B);
+        double[] yref = csr.multiplyVector(x);
+        int reps = 10;
+        String fastest = null;
+        double best = Double.MAX_VALUE;
+        for (int f = 0; f < formats.length; f++) {
+            SparseMatrix A = SparseFormatAnalyzer.convert(csr, formats[f]);
+            double[][] C = null;
+            double[] y = null;
+            timeSpmm[f] = Double.MAX_VALUE;
+            timeSpmv[f] = Double.MAX_VALUE;
+            // Best of several runs: single-shot times at this size are dominated by JIT state.
+            for (int r = 0; r < reps; r++) {
+                long t0 = System.nanoTime();
+                C = A.multiplyDense(B);
+                long t1 = System.nanoTime();
+                timeSpmm[f] = Math.min(timeSpmm[f], (t1 - t0) / 1e9);
+
+                t0 = System.nanoTime();
+                y = A.multiplyVector(x);
+                t1 = System.nanoTime();
+                timeSpmv[f] = Math.min(timeSpmv[f], (t1 - t0) / 1e9);
+            }
+
+            boolean same = equalRow(yref, y, 1e-8);
+            for (int i = 0; i < n && same; i++) {
+                same = equalRow(Cref[i], C[i], 1e-8);
+            }
+            if (!same) {
+                System.err.printf("Warning: %s differs from CSR for %s n=%d%n", A.formatName(), kind, n);
+            }
+            if (timeSpmm[f] < best) {
+                best = timeSpmm[f];
+                fastest = formats[f].name();
+            }
+        }
+        SparseFormatAnalyzer.Profile profile = SparseFormatAnalyzer.analyze(csr);
+        return new FormatBenchmarkResult(kind, n, csr.nnz, profile,
+                SparseFormatAnalyzer.recommend(profile).name(), fastest, timeSpmm, timeSpmv);
+    }
+
+    /**
+     * Plain CSR against every compressed variant on one matrix: bytes per nonzero (pointers,
+     * indices and values), SpMM GFLOP/s with an n x m operand and SpMV matrix-stream GB/s.
+     * Errors are relative to the plain CSR SpMM result.
+     */
+    public List<CompressionBenchmarkResult> runCompressionCase(String kind, int n, int m) {
+        SparseMatrixCSR csr = structuredSparse(kind, n);
+        double[][] B = new double[n][m];
+        for (double[] row : B) {
+            for (int j = 0; j < m; j++) row[j] = rng.nextDouble();
+        }
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = rng.nextDouble();
+        double[][] Cref = csr.multiplyDense(B);
+
+        List<SparseMatrix> variants = new ArrayList<>();
+        List<Double> bytesPerNnz = new ArrayList<>();
+        variants.add(csr);
+        bytesPerNnz.add((4.0 * (n + 1) + 12.0 * csr.nnz) / Math.max(1, csr.nnz));
+        for (CompressedSparseMatrixCSR.IndexEncoding encoding : CompressedSparseMatrixCSR.IndexEncoding.values()) {
+            for (boolean floatValues : new boolean[]{false, true}) {
+                CompressedSparseMatrixCSR c = CompressedSparseMatrixCSR.fromCsr(csr, encoding, floatValues);
+                variants.add(c);
+                bytesPerNnz.add(c.bytesPerNnz());
+            }
+        }
+
+        List<CompressionBenchmarkResult> out = new ArrayList<>();
+        int reps = 5;
+        for (int v = 0; v < variants.size(); v++) {
+            SparseMatrix A = variants.get(v);
+            double[][] C = null;
+            double timeSpmm = Double.MAX_VALUE;
+            double timeSpmv = Double.MAX_VALUE;
+            for (int r = 0; r < reps; r++) {
+                long t0 = System.nanoTime();
+                C = A.multiplyDense(B);
+                long t1 = System.nanoTime();
+                timeSpmm = Math.min(timeSpmm, (t1 - t0) / 1e9);
+
+                t0 = System.nanoTime();
+                A.multiplyVector(x);
+                t1 = System.nanoTime();
+                timeSpmv = Math.min(timeSpmv, (t1 - t0) / 1e9);
+            }
+            double maxErr = 0.0;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < m; j++) {
+                    double ref = Cref[i][j];
+                    if (ref != 0.0) maxErr = Math.max(maxErr, Math.abs(C[i][j] - ref) / Math.abs(ref));
+                }
+            }
+            double bytes = bytesPerNnz.get(v) * csr.nnz;
+            out.add(new CompressionBenchmarkResult(kind, n, csr.nnz, A.formatName(), bytesPerNnz.get(v),
+                    timeSpmm, 2.0 * csr.nnz * m / timeSpmm / 1e9, timeSpmv, bytes / timeSpmv / 1e9, maxErr));
+        }
+        return out;
+    }
+
+    private static boolean equalRow(double[] a, double[] b, double tol) {
+        for (int j = 0; j < a.length; j++) {
+            if (Math.abs(a[j] - b[j]) > tol) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SparseMatrixCSR structuredSparse(String kind, int n) {
+        CooMatrixBuilder coo = new CooMatrixBuilder(n, 16 * n);
+        switch (kind) {
+            case "random" -> {
+                return SparseMatrixCSR.randomSparse(rng, n, Math.min(1.0, 16.0 / n));
+            }
+            case "banded" -> {
+                int half = 8;
+                for (int i = 0; i < n; i++) {
+                    for (int j = Math.max(0, i - half); j <= Math.min(n - 1, i + half); j++) {
+                        coo.add(i, j, rng.nextDouble());
+                    }
+                }
+            }
+            case "block" -> {
+                int R = SparseFormatAnalyzer.BSR_BLOCK;
+                int nb = (n + R - 1) / R;
+                for (int I = 0; I < nb; I++) {
+                    for (int b = 0; b < 4; b++) {
+                        int J = rng.nextInt(nb);
+                        for (int i = I * R; i < Math.min(n, (I + 1) * R); i++) {
+                            for (int j = J * R; j < Math.min(n, (J + 1) * R); j++) {
+                                coo.add(i, j, rng.nextDouble());
+                            }
+                        }
+                    }
+                }
+            }
+            case "powerlaw" -> {
+                // Row i gets about 16 * n / (i + 1) / H_n nonzeros (Zipf), at least one.
+                double harmonic = 0.0;
+                for (int i = 1; i <= n; i++) harmonic += 1.0 / i;
+                for (int i = 0; i < n; i++) {
+                    int len = (int) Math.max(1, Math.min(n, 16.0 * n / ((i + 1) * harmonic)));
+                    for (int e = 0; e < len; e++) {
+                        coo.add(i, rng.nextInt(n), rng.nextDouble());
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown matrix kind: " + kind);
+        }
+        return coo.build();
+    }
+
+    public AdaptiveMatrixMultiplier.Decision runDispatchCase(AdaptiveMatrixMultiplier dispatcher, int n, double density) {
+        double[][] A = DenseMatrix.randomDenseMatrix(rng, n, density);
+        double[][] B = DenseMatrix.randomDenseMatrix(rng, n, density);
+        dispatcher.multiply(A, B);
+        return dispatcher.lastDecision();
+    }
+
+    /**
+     * Loads a local .mtx (caching it as .csrb next to it) or .csrb file and times the import,
+     * the mapped open, a bulk copy to the heap, and SpMV / SpMM (m = denseCols) on the result.
+     * mtx/bin write times are 0 when the cached binary file was reused.
+     */
+    public FileBenchmarkResult runFileCase(Path file, int denseCols) throws IOException {
+        String name = file.getFileName().toString();
+        double timeMtxRead = 0.0;
+        double timeBinWrite = 0.0;
+        Path bin = file;
+        if (name.endsWith(".mtx")) {
+            bin = file.resolveSibling(name.substring(0, name.length() - 4) + ".csrb");
+            if (!Files.exists(bin) || Files.getLastModifiedTime(bin).compareTo(Files.getLastModifiedTime(file)) < 0) {
+                long t0 = System.nanoTime();
+                SparseMatrixCSR imported = MatrixMarketReader.read(file);
+                long t1 = System.nanoTime();
+                timeMtxRead = (t1 - t0) / 1e9;
+
+                t0 = System.nanoTime();
+                CsrBinaryFile.write(imported, bin);
+                t1 = System.nanoTime();
+                timeBinWrite = (t1 - t0) / 1e9;
+            }
+        }
+
+        long t0 = System.nanoTime();
+        MappedCsrMatrix mapped = CsrBinaryFile.map(bin);
+        long t1 = System.nanoTime();
+        double timeMap = (t1 - t0) / 1e9;
+
+        double[] x = new double[mapped.n];
+        for (int i = 0; i < x.length; i++) x[i] = rng.nextDouble();
+        // First product on the mapping includes the page faults.
+        t0 = System.nanoTime();
+        double[] yMapped = mapped.multiplyVector(x);
+        t1 = System.nanoTime();
+        double timeSpmvMapped = (t1 - t0) / 1e9;
+
+        t0 = System.nanoTime();
+        SparseMatrixCSR csr = mapped.toCsr();
+        t1 = System.nanoTime();
+        double timeBinRead = (t1 - t0) / 1e9;
+
+        t0 = System.nanoTime();
+        double[] yHeap = csr.multiplyVector(x);
+        t1 = System.nanoTime();
+        double timeSpmvHeap = (t1 - t0) / 1e9;
+        if (!equalRow(yMapped, yHeap, 1e-8)) {
+            System.err.printf("Warning: mapped and heap SpMV differ for %s%n", name);
+        }
+
+        double[][] B = new double[csr.n][denseCols];
+        for (double[] row : B) {
+            for (int j = 0; j < denseCols; j++) row[j] = rng.nextDouble();
+        }
+        t0 = System.nanoTime();
+        csr.multiplyDense(B);
+        t1 = System.nanoTime();
+        double timeSpmmHeap = (t1 - t0) / 1e9;
+
+        return new FileBenchmarkResult(name, csr.n, csr.nnz, timeMtxRead, timeBinWrite, timeMap, timeBinRead,
+                timeSpmvMapped, timeSpmvHeap, timeSpmmHeap);
+    }
 }
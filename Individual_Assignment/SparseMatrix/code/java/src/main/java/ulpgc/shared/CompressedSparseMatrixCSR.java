@@ -0,0 +1,212 @@
+package ulpgc.shared;
+
+import java.util.Arrays;
+
+/**
+ * CSR with compressed column indices and optionally float32 values, for bandwidth-bound
+ * products. Column indices are delta-encoded within each row (the first delta is the column
+ * itself) and stored either as
+ * - DELTA16: one unsigned 16-bit char per delta; deltas >= 0xFFFF are written as 0xFFFF
+ *   followed by the delta in two chars, or
+ * - VARINT: LEB128 bytes, 7 bits per byte.
+ * idxPtr[i] is the start of row i in the index stream; rowPtr[i] still indexes the values.
+ * With float values the products are accumulated in double, but every value has been rounded
+ * to float once.
+ */
+public class CompressedSparseMatrixCSR implements SparseMatrix {
+    public enum IndexEncoding { DELTA16, VARINT }
+
+    private static final char ESCAPE = 0xFFFF;
+
+    public final int n;
+    public final int nnz;
+    public final IndexEncoding encoding;
+    private final int[] rowPtr;
+    private final int[] idxPtr;
+    private final char[] idx16;
+    private final byte[] idx8;
+    private final double[] valD;
+    private final float[] valF;
+
+    private CompressedSparseMatrixCSR(int n, int nnz, IndexEncoding encoding, int[] rowPtr, int[] idxPtr,
+                                      char[] idx16, byte[] idx8, double[] valD, float[] valF) {
+        this.n = n;
+        this.nnz = nnz;
+        this.encoding = encoding;
+        this.rowPtr = rowPtr;
+        this.idxPtr = idxPtr;
+        this.idx16 = idx16;
+        this.idx8 = idx8;
+        this.valD = valD;
+        this.valF = valF;
+    }
+
+    public static CompressedSparseMatrixCSR fromCsr(SparseMatrixCSR A, IndexEncoding encoding, boolean floatValues) {
+        int n = A.n;
+        int[] idxPtr = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int prev = 0;
+            int units = 0;
+            for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                int d = A.colIdx[k] - prev;
+                // Both encodings store unsigned gaps; a negative one would decode to a wrong column.
+                if (d < 0) {
+                    throw new IllegalArgumentException("column indices of row " + i + " are not sorted");
+                }
+                units += encodedLength(d, encoding);
+                prev = A.colIdx[k];
+            }
+            idxPtr[i + 1] = idxPtr[i] + units;
+        }
+
+        char[] idx16 = encoding == IndexEncoding.DELTA16 ? new char[idxPtr[n]] : null;
+        byte[] idx8 = encoding == IndexEncoding.VARINT ? new byte[idxPtr[n]] : null;
+        for (int i = 0; i < n; i++) {
+            int prev = 0;
+            int p = idxPtr[i];
+            for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                int d = A.colIdx[k] - prev;
+                prev = A.colIdx[k];
+                if (encoding == IndexEncoding.DELTA16) {
+                    if (d < ESCAPE) {
+                        idx16[p++] = (char) d;
+                    } else {
+                        idx16[p++] = ESCAPE;
+                        idx16[p++] = (char) (d >>> 16);
+                        idx16[p++] = (char) d;
+                    }
+                } else {
+                    while ((d & ~0x7F) != 0) {
+                        idx8[p++] = (byte) ((d & 0x7F) | 0x80);
+                        d >>>= 7;
+                    }
+                    idx8[p++] = (byte) d;
+                }
+            }
+        }
+
+        double[] valD = null;
+        float[] valF = null;
+        if (floatValues) {
+            valF = new float[A.nnz];
+            for (int k = 0; k < A.nnz; k++) valF[k] = (float) A.val[k];
+        } else {
+            valD = Arrays.copyOf(A.val, A.nnz);
+        }
+        return new CompressedSparseMatrixCSR(n, A.nnz, encoding, A.rowPtr.clone(), idxPtr, idx16, idx8, valD, valF);
+    }
+
+    private static int encodedLength(int d, IndexEncoding encoding) {
+        if (encoding == IndexEncoding.DELTA16) {
+            return d < ESCAPE ? 1 : 3;
+        }
+        int len = 1;
+        while ((d & ~0x7F) != 0) {
+            d >>>= 7;
+            len++;
+        }
+        return len;
+    }
+
+    // Everything the kernels read per product: both pointer arrays, the index stream and the values.
+    public long storageBytes() {
+        long index = idx16 != null ? 2L * idx16.length : idx8.length;
+        long values = valF != null ? 4L * valF.length : 8L * valD.length;
+        return 2L * Integer.BYTES * (n + 1) + index + values;
+    }
+
+    public double bytesPerNnz() {
+        return nnz == 0 ? 0.0 : storageBytes() / (double) nnz;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int nnz() {
+        return nnz;
+    }
+
+    @Override
+    public String formatName() {
+        return "CSR-" + encoding + (valF != null ? "-f32" : "-f64");
+    }
+
+    // Each row's columns are decoded into a scratch array first, so the decode loop and the
+    // multiply loop stay separate tight loops instead of one loop with data-dependent branches.
+    @Override
+    public double[][] multiplyDense(double[][] B) {
+        int m = B.length == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
+        int[] cols = new int[maxRowLength()];
+        for (int i = 0; i < n; i++) {
+            int len = decodeRow(i, cols);
+            int start = rowPtr[i];
+            double[] Crow = C[i];
+            for (int q = 0; q < len; q++) {
+                double a = valF != null ? valF[start + q] : valD[start + q];
+                double[] Brow = B[cols[q]];
+                for (int j = 0; j < m; j++) {
+                    Crow[j] += a * Brow[j];
+                }
+            }
+        }
+        return C;
+    }
+
+    @Override
+    public double[] multiplyVector(double[] x) {
+        double[] y = new double[n];
+        int[] cols = new int[maxRowLength()];
+        for (int i = 0; i < n; i++) {
+            int len = decodeRow(i, cols);
+            int start = rowPtr[i];
+            double sum = 0.0;
+            if (valF != null) {
+                for (int q = 0; q < len; q++) sum += valF[start + q] * x[cols[q]];
+            } else {
+                for (int q = 0; q < len; q++) sum += valD[start + q] * x[cols[q]];
+            }
+            y[i] = sum;
+        }
+        return y;
+    }
+
+    private int maxRowLength() {
+        int max = 0;
+        for (int i = 0; i < n; i++) max = Math.max(max, rowPtr[i + 1] - rowPtr[i]);
+        return max;
+    }
+
+    // Writes the absolute column indices of row i into cols and returns the row length.
+    private int decodeRow(int i, int[] cols) {
+        int len = rowPtr[i + 1] - rowPtr[i];
+        int p = idxPtr[i];
+        int col = 0;
+        if (idx16 != null) {
+            for (int q = 0; q < len; q++) {
+                int d = idx16[p++];
+                if (d == ESCAPE) {
+                    d = (idx16[p] << 16) | idx16[p + 1];
+                    p += 2;
+                }
+                col += d;
+                cols[q] = col;
+            }
+        } else {
+            for (int q = 0; q < len; q++) {
+                int b = idx8[p++];
+                int d = b & 0x7F;
+                for (int shift = 7; b < 0; shift += 7) {
+                    b = idx8[p++];
+                    d |= (b & 0x7F) << shift;
+                }
+                col += d;
+                cols[q] = col;
+            }
+        }
+        return len;
+    }
+}
@@ -0,0 +1,34 @@
+package ulpgc.shared;
+
+public class CompressionBenchmarkResult {
+    private final String kind;
+    private final int n;
+    private final int nnz;
+    private final String format;
+    private final double bytesPerNnz;
+    private final double timeSpmm;
+    private final double gflopsSpmm;
+    private final double timeSpmv;
+    private final double gbsSpmv;
+    private final double maxRelError;
+
+    public CompressionBenchmarkResult(String kind, int n, int nnz, String format, double bytesPerNnz,
+                                      double timeSpmm, double gflopsSpmm, double timeSpmv, double gbsSpmv,
+                                      double maxRelError) {
+        this.kind = kind;
+        this.n = n;
+        this.nnz = nnz;
+        this.format = format;
+        this.bytesPerNnz = bytesPerNnz;
+        this.timeSpmm = timeSpmm;
+        this.gflopsSpmm = gflopsSpmm;
+        this.timeSpmv = timeSpmv;
+        this.gbsSpmv = gbsSpmv;
+        this.maxRelError = maxRelError;
+    }
+
+    public String toCsvLine() {
+        return String.format("%s,%d,%d,%s,%.3f,%.6f,%.3f,%.6f,%.3f,%.3e",
+                kind, n, nnz, format, bytesPerNnz, timeSpmm, gflopsSpmm, timeSpmv, gbsSpmv, maxRelError);
+    }
+}
@@ -0,0 +1,123 @@
+package ulpgc.shared;
+
+import java.util.Arrays;
+
+/**
+ * Collects (row, col, value) triplets in any order and turns them into a SparseMatrixCSR.
+ * Duplicates are summed. Memory is proportional to the number of triplets; no n x n array is
+ * ever allocated.
+ */
+public class CooMatrixBuilder {
+    private final int n;
+    private int size = 0;
+    private int[] rows;
+    private int[] cols;
+    private double[] vals;
+
+    public CooMatrixBuilder(int n) {
+        this(n, 16);
+    }
+
+    public CooMatrixBuilder(int n, int expectedNnz) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must be non-negative");
+        }
+        int capacity = Math.max(1, expectedNnz);
+        this.n = n;
+        this.rows = new int[capacity];
+        this.cols = new int[capacity];
+        this.vals = new double[capacity];
+    }
+
+    public CooMatrixBuilder add(int row, int col, double value) {
+        if (row < 0 || row >= n || col < 0 || col >= n) {
+            throw new IllegalArgumentException("(" + row + ", " + col + ") outside " + n + " x " + n);
+        }
+        if (size == rows.length) {
+            int capacity = rows.length + (rows.length >> 1) + 1;
+            rows = Arrays.copyOf(rows, capacity);
+            cols = Arrays.copyOf(cols, capacity);
+            vals = Arrays.copyOf(vals, capacity);
+        }
+        rows[size] = row;
+        cols[size] = col;
+        vals[size] = value;
+        size++;
+        return this;
+    }
+
+    public CooMatrixBuilder addAll(CooMatrixBuilder other) {
+        if (other.n != n) {
+            throw new IllegalArgumentException("builders have different sizes");
+        }
+        if (size + other.size > rows.length) {
+            int capacity = size + other.size;
+            rows = Arrays.copyOf(rows, capacity);
+            cols = Arrays.copyOf(cols, capacity);
+            vals = Arrays.copyOf(vals, capacity);
+        }
+        System.arraycopy(other.rows, 0, rows, size, other.size);
+        System.arraycopy(other.cols, 0, cols, size, other.size);
+        System.arraycopy(other.vals, 0, vals, size, other.size);
+        size += other.size;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Two stable counting sorts (by column, then by row) give row-major order with sorted
+    // columns in O(nnz + n); equal (row, col) neighbours are then summed in place.
+    public SparseMatrixCSR build() {
+        int[] colStart = new int[n + 1];
+        for (int e = 0; e < size; e++) {
+            colStart[cols[e] + 1]++;
+        }
+        for (int j = 0; j < n; j++) {
+            colStart[j + 1] += colStart[j];
+        }
+        int[] byCol = new int[size];
+        for (int e = 0; e < size; e++) {
+            byCol[colStart[cols[e]]++] = e;
+        }
+
+        int[] rowPtr = new int[n + 1];
+        for (int e = 0; e < size; e++) {
+            rowPtr[rows[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            rowPtr[i + 1] += rowPtr[i];
+        }
+        int[] next = Arrays.copyOf(rowPtr, n);
+        int[] colIdx = new int[size];
+        double[] val = new double[size];
+        for (int e : byCol) {
+            int pos = next[rows[e]]++;
+            colIdx[pos] = cols[e];
+            val[pos] = vals[e];
+        }
+
+        int out = 0;
+        for (int i = 0; i < n; i++) {
+            int start = rowPtr[i];
+            int end = rowPtr[i + 1];
+            rowPtr[i] = out;
+            for (int k = start; k < end; k++) {
+                if (out > rowPtr[i] && colIdx[out - 1] == colIdx[k]) {
+                    val[out - 1] += val[k];
+                } else {
+                    colIdx[out] = colIdx[k];
+                    val[out] = val[k];
+                    out++;
+                }
+            }
+        }
+        rowPtr[n] = out;
+        if (out < size) {
+            colIdx = Arrays.copyOf(colIdx, out);
+            val = Arrays.copyOf(val, out);
+        }
+        return new SparseMatrixCSR(n, out, val, colIdx, rowPtr);
+    }
+}
@@ -0,0 +1,148 @@
+package ulpgc.shared;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary CSR file: a 64-byte little-endian header followed by the rowPtr (int32), colIdx (int32)
+ * and val (float64) sections, each starting on a 64-byte boundary.
+ *
+ *   0  int   magic "CSR1"      16 long nnz
+ *   4  int   version           24 long rowPtr offset
+ *   8  int   n                 32 long colIdx offset
+ *  12  int   reserved          40 long val offset
+ *
+ * map() checks the header, the section bounds and rowPtr, then opens the sections as views on
+ * the mapped file without copying; read() copies them into a heap SparseMatrixCSR with bulk
+ * gets. A single mapped section is limited to 2 GB, i.e. about 268M nonzeros.
+ */
+public class CsrBinaryFile {
+    public static final int MAGIC = 0x43535231;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 64;
+    public static final int ALIGNMENT = 64;
+
+    public static void write(SparseMatrixCSR A, Path file) throws IOException {
+        long rowPtrOffset = HEADER_BYTES;
+        long colIdxOffset = align(rowPtrOffset + (long) (A.n + 1) * Integer.BYTES);
+        long valOffset = align(colIdxOffset + (long) A.nnz * Integer.BYTES);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(A.n).putInt(0)
+                    .putLong(A.nnz).putLong(rowPtrOffset).putLong(colIdxOffset).putLong(valOffset);
+            header.clear();
+            ch.write(header, 0);
+
+            MappedByteBuffer rows = section(ch, rowPtrOffset, (long) (A.n + 1) * Integer.BYTES);
+            rows.asIntBuffer().put(A.rowPtr, 0, A.n + 1);
+            MappedByteBuffer cols = section(ch, colIdxOffset, (long) A.nnz * Integer.BYTES);
+            cols.asIntBuffer().put(A.colIdx, 0, A.nnz);
+            MappedByteBuffer vals = section(ch, valOffset, (long) A.nnz * Double.BYTES);
+            vals.asDoubleBuffer().put(A.val, 0, A.nnz);
+            rows.force();
+            cols.force();
+            vals.force();
+            // The header went through the channel rather than a mapping.
+            ch.force(true);
+        }
+    }
+
+    public static MappedCsrMatrix map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (ch.read(header, 0) != HEADER_BYTES) {
+                throw new IOException(file + " is too short for a CSR header");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a binary CSR file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            int n = header.getInt();
+            header.getInt();
+            long nnz = header.getLong();
+            if (n < 0 || nnz < 0) {
+                throw new IOException(file + " has a corrupt header (n=" + n + ", nnz=" + nnz + ")");
+            }
+            if (nnz > Integer.MAX_VALUE) {
+                throw new IOException(file + " holds " + nnz + " nonzeros, more than a CSR section can index");
+            }
+            long rowPtrOffset = header.getLong();
+            long colIdxOffset = header.getLong();
+            long valOffset = header.getLong();
+            long rowPtrBytes = ((long) n + 1) * Integer.BYTES;
+            long colIdxBytes = nnz * Integer.BYTES;
+            long valBytes = nnz * Double.BYTES;
+            long size = ch.size();
+            checkSection(file, "rowPtr", rowPtrOffset, rowPtrBytes, size);
+            checkSection(file, "colIdx", colIdxOffset, colIdxBytes, size);
+            checkSection(file, "val", valOffset, valBytes, size);
+            IntBuffer rowPtr = map(ch, rowPtrOffset, rowPtrBytes).asIntBuffer();
+            checkRowPtr(file, rowPtr, n, (int) nnz);
+            // Mappings stay valid after the channel is closed.
+            return new MappedCsrMatrix(n, (int) nnz, rowPtr,
+                    map(ch, colIdxOffset, colIdxBytes).asIntBuffer(),
+                    map(ch, valOffset, valBytes).asDoubleBuffer());
+        }
+    }
+
+    public static SparseMatrixCSR read(Path file) throws IOException {
+        return map(file).toCsr();
+    }
+
+    // A section must lie after the header, inside the file, and fit one mapping.
+    private static void checkSection(Path file, String name, long offset, long bytes, long fileSize)
+            throws IOException {
+        if (offset < HEADER_BYTES || offset > fileSize || bytes > fileSize - offset) {
+            throw new IOException(file + ": " + name + " section [" + offset + ", +" + bytes
+                    + ") does not fit the " + fileSize + "-byte file");
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException(file + ": " + name + " section of " + bytes + " bytes exceeds one mapping");
+        }
+    }
+
+    // rowPtr must start at 0, never decrease and end at nnz, or a product would index past the
+    // other sections. This touches the n + 1 rowPtr entries but none of colIdx or val.
+    private static void checkRowPtr(Path file, IntBuffer rowPtr, int n, int nnz) throws IOException {
+        if (rowPtr.get(0) != 0) {
+            throw new IOException(file + ": rowPtr[0] is " + rowPtr.get(0) + ", expected 0");
+        }
+        int prev = 0;
+        for (int i = 1; i <= n; i++) {
+            int cur = rowPtr.get(i);
+            if (cur < prev) {
+                throw new IOException(file + ": rowPtr decreases at row " + (i - 1));
+            }
+            prev = cur;
+        }
+        if (prev != nnz) {
+            throw new IOException(file + ": rowPtr[n] is " + prev + ", expected nnz=" + nnz);
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static MappedByteBuffer section(FileChannel ch, long offset, long bytes) throws IOException {
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        return buf;
+    }
+
+    private static ByteBuffer map(FileChannel ch, long offset, long bytes) throws IOException {
+        return ch.map(FileChannel.MapMode.READ_ONLY, offset, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -1,6 +1,8 @@
 package ulpgc.shared;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 public class DenseMatrix {
     public static double[][] randomDenseMatrix(Random rng, int n, double density) {
@@ -34,35 +36,95 @@ public class DenseMatrix {
         return C;
     }
 
-    public static double[][] matmulBlocked(double[][] A, double[][] B, int block) {
+    /**
+     * Two-level tiled C = A * B. C is cut into column tiles l2Block wide and row bands at most
+     * l2Block tall; there are at least as many bands x tiles as processors, so a large l2Block
+     * does not leave cores idle. Each task accumulates in a per-thread buffer and stores to C
+     * once. For each step of l2Block along k the matching B tile is copied into a per-thread
+     * packed buffer (no full transpose of B); within it, l1Block x l1Block sub-tiles of the packed
+     * tile are reused across every row of the band. The innermost loop is an ikj-order axpy that
+     * the JIT vectorizes.
+     */
+    public static double[][] matmulBlocked(double[][] A, double[][] B, int l1Block, int l2Block) {
+        if (l1Block <= 0 || l2Block <= 0) {
+            throw new IllegalArgumentException("block sizes must be positive");
+        }
         int n = A.length;
         double[][] C = new double[n][n];
-        double[][] BT = transpose(B);
+        if (n == 0) return C;
+        int colTiles = (n + l2Block - 1) / l2Block;
+        int minBands = (Runtime.getRuntime().availableProcessors() + colTiles - 1) / colTiles;
+        int rowBands = Math.min(n, Math.max(colTiles, minBands));
+        int bandRows = (n + rowBands - 1) / rowBands;
+        int bands = (n + bandRows - 1) / bandRows;
+
+        IntStream.range(0, bands * colTiles).parallel().forEach(t ->
+                multiplyTile(A, B, C, n, (t / colTiles) * bandRows, (t % colTiles) * l2Block,
+                        bandRows, l1Block, l2Block));
+        return C;
+    }
 
-        for (int ii = 0; ii < n; ii += block) {
-            int iMax = Math.min(ii + block, n);
-            for (int jj = 0; jj < n; jj += block) {
-                int jMax = Math.min(jj + block, n);
-                for (int kk = 0; kk < n; kk += block) {
-                    int kMax = Math.min(kk + block, n);
-                    for (int i = ii; i < iMax; i++) {
-                        for (int j = jj; j < jMax; j++) {
-                            double sum = C[i][j];
-                            double[] Arow = A[i];
-                            double[] BTrow = BT[j];
-                            for (int k = kk; k < kMax; k++) {
-                                sum += Arow[k] * BTrow[k];
+    private static void multiplyTile(double[][] A, double[][] B, double[][] C, int n, int ii, int jj,
+                                     int bandRows, int l1Block, int l2Block) {
+        int ib = Math.min(bandRows, n - ii);
+        int jb = Math.min(l2Block, n - jj);
+        TileBuffers buf = TILE_BUFFERS.get().ensure(bandRows, l2Block);
+        double[][] Bp = buf.b;
+        double[][] Ct = buf.c;
+        for (int i = 0; i < ib; i++) {
+            Arrays.fill(Ct[i], 0, jb, 0.0);
+        }
+
+        for (int kk = 0; kk < n; kk += l2Block) {
+            int kb = Math.min(l2Block, n - kk);
+            for (int k = 0; k < kb; k++) {
+                System.arraycopy(B[kk + k], jj, Bp[k], 0, jb);
+            }
+            for (int k0 = 0; k0 < kb; k0 += l1Block) {
+                int k1 = Math.min(k0 + l1Block, kb);
+                for (int j0 = 0; j0 < jb; j0 += l1Block) {
+                    int j1 = Math.min(j0 + l1Block, jb);
+                    for (int i = 0; i < ib; i++) {
+                        double[] Arow = A[ii + i];
+                        double[] Crow = Ct[i];
+                        for (int k = k0; k < k1; k++) {
+                            double aik = Arow[kk + k];
+                            if (aik == 0.0) continue;
+                            double[] Brow = Bp[k];
+                            for (int j = j0; j < j1; j++) {
+                                Crow[j] += aik * Brow[j];
                             }
-                            C[i][j] = sum;
                         }
                     }
                 }
             }
         }
 
-        return C;
+        for (int i = 0; i < ib; i++) {
+            System.arraycopy(Ct[i], 0, C[ii + i], jj, jb);
+        }
+    }
+
+    // Per-thread packed B tile (l2Block x l2Block) and C accumulator (bandRows x l2Block). Keeping
+    // the C tile in its own rows gives the inner loop identical indices on both arrays, which is
+    // what lets the JIT vectorize it.
+    private static final class TileBuffers {
+        double[][] b = new double[0][];
+        double[][] c = new double[0][];
+
+        TileBuffers ensure(int rows, int size) {
+            if (b.length < size || (size > 0 && b[0].length < size)) {
+                b = new double[size][size];
+            }
+            if (c.length < rows || (rows > 0 && c[0].length < size)) {
+                c = new double[Math.max(rows, c.length)][size];
+            }
+            return this;
+        }
     }
 
+    private static final ThreadLocal<TileBuffers> TILE_BUFFERS = ThreadLocal.withInitial(TileBuffers::new);
+
     public static double[][] transpose(double[][] M) {
         int n = M.length;
         double[][] MT = new double[n][n];
@@ -0,0 +1,35 @@
+package ulpgc.shared;
+
+public class FileBenchmarkResult {
+    private final String file;
+    private final int n;
+    private final int nnz;
+    private final double timeMtxRead;
+    private final double timeBinWrite;
+    private final double timeMap;
+    private final double timeBinRead;
+    private final double timeSpmvMapped;
+    private final double timeSpmvHeap;
+    private final double timeSpmmHeap;
+
+    public FileBenchmarkResult(String file, int n, int nnz, double timeMtxRead, double timeBinWrite,
+                               double timeMap, double timeBinRead, double timeSpmvMapped,
+                               double timeSpmvHeap, double timeSpmmHeap) {
+        this.file = file;
+        this.n = n;
+        this.nnz = nnz;
+        this.timeMtxRead = timeMtxRead;
+        this.timeBinWrite = timeBinWrite;
+        this.timeMap = timeMap;
+        this.timeBinRead = timeBinRead;
+        this.timeSpmvMapped = timeSpmvMapped;
+        this.timeSpmvHeap = timeSpmvHeap;
+        this.timeSpmmHeap = timeSpmmHeap;
+    }
+
+    public String toCsvLine() {
+        return String.format("%s,%d,%d,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f",
+                file.replace(',', ';'), n, nnz, timeMtxRead, timeBinWrite, timeMap, timeBinRead,
+                timeSpmvMapped, timeSpmvHeap, timeSpmmHeap);
+    }
+}
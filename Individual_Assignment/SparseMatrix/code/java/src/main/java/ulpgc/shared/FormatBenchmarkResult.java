@@ -0,0 +1,33 @@
+package ulpgc.shared;
+
+public class FormatBenchmarkResult {
+    private final String kind;
+    private final int n;
+    private final int nnz;
+    private final SparseFormatAnalyzer.Profile profile;
+    private final String recommended;
+    private final String fastest;
+    private final double[] timeSpmm;
+    private final double[] timeSpmv;
+
+    public FormatBenchmarkResult(String kind, int n, int nnz, SparseFormatAnalyzer.Profile profile,
+                                 String recommended, String fastest, double[] timeSpmm, double[] timeSpmv) {
+        this.kind = kind;
+        this.n = n;
+        this.nnz = nnz;
+        this.profile = profile;
+        this.recommended = recommended;
+        this.fastest = fastest;
+        this.timeSpmm = timeSpmm;
+        this.timeSpmv = timeSpmv;
+    }
+
+    // Times are in SparseFormatAnalyzer.Format order: CSR, CSC, SELL, BSR.
+    public String toCsvLine() {
+        StringBuilder sb = new StringBuilder(String.format("%s,%d,%d,%.3f,%.3f,%.3f,%s,%s",
+                kind, n, nnz, profile.rowCv(), profile.sellPadding(), profile.blockFill(), recommended, fastest));
+        for (double t : timeSpmm) sb.append(String.format(",%.6f", t));
+        for (double t : timeSpmv) sb.append(String.format(",%.6f", t));
+        return sb.toString();
+    }
+}
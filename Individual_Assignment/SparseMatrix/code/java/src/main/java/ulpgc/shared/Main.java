@@ -6,32 +6,85 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 public class Main {
-    private static Path getOutputPath() throws IOException {
+    private static Path getOutputPath(String fileName) throws IOException {
         String userDir = System.getProperty("user.dir"); // project root when run from IntelliJ
         Path outputDir = Paths.get(userDir, "output");
         Files.createDirectories(outputDir);
-        return outputDir.resolve("results_java.csv");
+        return outputDir.resolve(fileName);
+    }
+
+    private static List<Path> matrixFiles(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (args.length > 0) {
+            for (String arg : args) files.add(Paths.get(arg));
+            return files;
+        }
+        Path dir = Paths.get(System.getProperty("user.dir"), "matrices");
+        if (!Files.isDirectory(dir)) return files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            listing.filter(p -> {
+                        String name = p.getFileName().toString();
+                        // A .csrb with a matching .mtx is the cache of that file, not a separate input.
+                        return name.endsWith(".mtx") || (name.endsWith(".csrb")
+                                && !Files.exists(p.resolveSibling(name.substring(0, name.length() - 5) + ".mtx")));
+                    })
+                    .sorted()
+                    .forEach(files::add);
+        }
+        return files;
     }
 
     public static void main(String[] args) {
         try {
-            Path outputPath = getOutputPath();
+            Path outputPath = getOutputPath("results_java.csv");
             int[] sizes = {64, 128, 256, 512};
             double[] densities = {1.0, 0.1, 0.01, 0.001};
-            int blockSize = 32;
+            int[][] blockPairs = {{16, 64}, {32, 128}, {32, 256}, {64, 256}, {64, 512}};
             BenchmarkRunner runner = new BenchmarkRunner(System.currentTimeMillis());
+            List<BenchmarkResult> results = new ArrayList<>();
+
+            // Sweep the (L1, L2) block pair of matmulBlocked on the largest size; the winner is
+            // used by the main sweep and by the dispatcher.
+            Path blockedOutputPath = getOutputPath("results_java_blocked.csv");
+            int sweepSize = sizes[sizes.length - 1];
+            int[] bestPair = blockPairs[0];
+            double bestTime = Double.MAX_VALUE;
+            try (BufferedWriter bw = Files.newBufferedWriter(blockedOutputPath);
+                 PrintWriter out = new PrintWriter(bw)) {
+                String header = "n,l1_block,l2_block,time_blocked";
+                out.println(header);
+                System.out.println(header);
+
+                for (int[] pair : blockPairs) {
+                    double time = runner.runBlockedCase(sweepSize, pair[0], pair[1], 3);
+                    if (time < bestTime) {
+                        bestTime = time;
+                        bestPair = pair;
+                    }
+                    String line = String.format("%d,%d,%d,%.6f", sweepSize, pair[0], pair[1], time);
+                    out.println(line);
+                    System.out.println(line);
+                }
+            }
+            int l1Block = bestPair[0];
+            int l2Block = bestPair[1];
+            System.out.printf("%nUsing blocks L1=%d, L2=%d%n%n", l1Block, l2Block);
 
             try (BufferedWriter bw = Files.newBufferedWriter(outputPath);
                  PrintWriter out = new PrintWriter(bw)) {
-                String header = "n,input_density,nnz_density,time_basic,time_blocked,time_sparse";
+                String header = "n,input_density,nnz_density,time_basic,time_blocked,time_sparse,time_sparse_par,time_sparse_mp,time_spgemm,time_to_csr";
                 out.println(header);
                 System.out.println(header);
 
                 for (double density : densities) {
                     for (int n : sizes) {
-                        BenchmarkResult result = runner.runBenchmarkCase(n, density, blockSize);
+                        BenchmarkResult result = runner.runBenchmarkCase(n, density, l1Block, l2Block);
+                        results.add(result);
                         String line = result.toCsvLine();
                         out.println(line);
                         System.out.println(line);
@@ -41,6 +94,107 @@ public class Main {
 
             System.out.println("\nJava results saved to: " + outputPath.toAbsolutePath());
 
+            // The sweep above doubles as the dispatcher calibration; replay the grid through it.
+            AdaptiveMatrixMultiplier dispatcher = AdaptiveMatrixMultiplier.calibrate(results, l1Block, l2Block);
+            Path calibrationPath = getOutputPath("dispatch_calibration.properties");
+            dispatcher.save(calibrationPath);
+            Path dispatchOutputPath = getOutputPath("results_java_dispatch.csv");
+            try (BufferedWriter bw = Files.newBufferedWriter(dispatchOutputPath);
+                 PrintWriter out = new PrintWriter(bw)) {
+                String header = "n,sampled_density,sparse_below,kernel,time_convert,time_multiply";
+                out.println(header);
+                System.out.println("\n" + header);
+
+                for (double density : densities) {
+                    for (int n : sizes) {
+                        String line = runner.runDispatchCase(dispatcher, n, density).toCsvLine();
+                        out.println(line);
+                        System.out.println(line);
+                    }
+                }
+            }
+
+            System.out.println("\nDispatcher calibration saved to: " + calibrationPath.toAbsolutePath());
+
+            // Sparse-only sweep: sizes far beyond what the dense n x n path can allocate.
+            Path sparseOutputPath = getOutputPath("results_java_sparse.csv");
+            int[] sparseSizes = {10_000, 100_000, 1_000_000};
+            int nnzPerRow = 8;
+            try (BufferedWriter bw = Files.newBufferedWriter(sparseOutputPath);
+                 PrintWriter out = new PrintWriter(bw)) {
+                String header = "n,nnz_per_row,nnz_a,nnz_b,nnz_c,time_generate,time_coo_build,time_spgemm";
+                out.println(header);
+                System.out.println("\n" + header);
+
+                for (int n : sparseSizes) {
+                    String line = runner.runSparseCase(n, nnzPerRow).toCsvLine();
+                    out.println(line);
+                    System.out.println(line);
+                }
+            }
+
+            System.out.println("\nJava sparse results saved to: " + sparseOutputPath.toAbsolutePath());
+
+            Path formatOutputPath = getOutputPath("results_java_formats.csv");
+            String[] kinds = {"random", "banded", "block", "powerlaw"};
+            int formatSize = 8192;
+            int denseCols = 32;
+            try (BufferedWriter bw = Files.newBufferedWriter(formatOutputPath);
+                 PrintWriter out = new PrintWriter(bw)) {
+                String header = "kind,n,nnz,row_cv,sell_padding,block_fill,recommended,fastest_spmm,"
+                        + "spmm_csr,spmm_csc,spmm_sell,spmm_bsr,spmv_csr,spmv_csc,spmv_sell,spmv_bsr";
+                out.println(header);
+                System.out.println("\n" + header);
+
+                for (String kind : kinds) {
+                    String line = runner.runFormatCase(kind, formatSize, denseCols).toCsvLine();
+                    out.println(line);
+                    System.out.println(line);
+                }
+            }
+
+            System.out.println("\nJava format results saved to: " + formatOutputPath.toAbsolutePath());
+
+            Path compressedOutputPath = getOutputPath("results_java_compressed.csv");
+            int compressedSize = 500_000;
+            try (BufferedWriter bw = Files.newBufferedWriter(compressedOutputPath);
+                 PrintWriter out = new PrintWriter(bw)) {
+                String header = "kind,n,nnz,format,bytes_per_nnz,spmm_time,spmm_gflops,spmv_time,spmv_gbs,max_rel_err";
+                out.println(header);
+                System.out.println("\n" + header);
+
+                for (String kind : new String[]{"random", "banded"}) {
+                    for (CompressionBenchmarkResult result : runner.runCompressionCase(kind, compressedSize, 8)) {
+                        String line = result.toCsvLine();
+                        out.println(line);
+                        System.out.println(line);
+                    }
+                }
+            }
+
+            System.out.println("\nJava compression results saved to: " + compressedOutputPath.toAbsolutePath());
+
+            // Real matrices: .mtx / .csrb files given as arguments, or found in ./matrices.
+            List<Path> matrixFiles = matrixFiles(args);
+            if (!matrixFiles.isEmpty()) {
+                Path fileOutputPath = getOutputPath("results_java_files.csv");
+                try (BufferedWriter bw = Files.newBufferedWriter(fileOutputPath);
+                     PrintWriter out = new PrintWriter(bw)) {
+                    String header = "file,n,nnz,time_mtx_read,time_bin_write,time_map,time_bin_read,"
+                            + "spmv_mapped,spmv_heap,spmm_heap";
+                    out.println(header);
+                    System.out.println("\n" + header);
+
+                    for (Path file : matrixFiles) {
+                        String line = runner.runFileCase(file, denseCols).toCsvLine();
+                        out.println(line);
+                        System.out.println(line);
+                    }
+                }
+
+                System.out.println("\nJava file results saved to: " + fileOutputPath.toAbsolutePath());
+            }
+
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,80 @@
+package ulpgc.shared;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * CSR matrix whose arrays live in a memory-mapped CsrBinaryFile. Opening costs the mapping
+ * plus one pass over rowPtr to validate it; colIdx and val pages are faulted in by the first
+ * product that touches them.
+ */
+public class MappedCsrMatrix implements SparseMatrix {
+    public final int n;
+    public final int nnz;
+    private final IntBuffer rowPtr;
+    private final IntBuffer colIdx;
+    private final DoubleBuffer val;
+
+    MappedCsrMatrix(int n, int nnz, IntBuffer rowPtr, IntBuffer colIdx, DoubleBuffer val) {
+        this.n = n;
+        this.nnz = nnz;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.val = val;
+    }
+
+    public SparseMatrixCSR toCsr() {
+        int[] rp = new int[n + 1];
+        int[] ci = new int[nnz];
+        double[] v = new double[nnz];
+        rowPtr.get(0, rp);
+        colIdx.get(0, ci);
+        val.get(0, v);
+        return new SparseMatrixCSR(n, nnz, v, ci, rp);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int nnz() {
+        return nnz;
+    }
+
+    @Override
+    public String formatName() {
+        return "CSR-mapped";
+    }
+
+    @Override
+    public double[][] multiplyDense(double[][] B) {
+        int m = B.length == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            double[] Crow = C[i];
+            for (int k = rowPtr.get(i); k < rowPtr.get(i + 1); k++) {
+                double a = val.get(k);
+                double[] Brow = B[colIdx.get(k)];
+                for (int j = 0; j < m; j++) {
+                    Crow[j] += a * Brow[j];
+                }
+            }
+        }
+        return C;
+    }
+
+    @Override
+    public double[] multiplyVector(double[] x) {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = 0.0;
+            for (int k = rowPtr.get(i); k < rowPtr.get(i + 1); k++) {
+                sum += val.get(k) * x[colIdx.get(k)];
+            }
+            y[i] = sum;
+        }
+        return y;
+    }
+}
@@ -0,0 +1,203 @@
+package ulpgc.shared;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel reader for Matrix Market coordinate files (real, integer or pattern; general,
+ * symmetric or skew-symmetric). The data section is cut into chunks at line boundaries, each
+ * chunk is parsed into its own CooMatrixBuilder, and the builders are merged before the CSR
+ * build. Indices in the file are 1-based. Rectangular matrices are embedded in an
+ * max(rows, cols) square, since SparseMatrixCSR is square. Files must be below 2 GB.
+ */
+public class MatrixMarketReader {
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    public static SparseMatrixCSR read(Path file) throws IOException {
+        return read(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static SparseMatrixCSR read(Path file, int parallelism) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        int limit = buf.limit();
+
+        int pos = 0;
+        int lineEnd = lineEnd(buf, pos, limit);
+        String banner = ascii(buf, pos, lineEnd).trim().toLowerCase(Locale.ROOT);
+        String[] h = banner.split("\\s+");
+        if (h.length < 5 || !h[0].equals("%%matrixmarket") || !h[1].equals("matrix")) {
+            throw new IOException(file + ": missing %%MatrixMarket matrix header");
+        }
+        if (!h[2].equals("coordinate")) {
+            throw new IOException(file + ": only coordinate format is supported, found " + h[2]);
+        }
+        String field = h[3];
+        if (field.equals("complex")) {
+            throw new IOException(file + ": complex matrices are not supported");
+        }
+        boolean pattern = field.equals("pattern");
+        String symmetry = h[4];
+        boolean mirror = !symmetry.equals("general");
+        double mirrorSign = symmetry.equals("skew-symmetric") ? -1.0 : 1.0;
+
+        // Skip comments, then the size line: rows cols entries.
+        pos = lineEnd + 1;
+        String sizeLine;
+        while (true) {
+            if (pos >= limit) throw new IOException(file + ": missing size line");
+            lineEnd = lineEnd(buf, pos, limit);
+            sizeLine = ascii(buf, pos, lineEnd).trim();
+            pos = lineEnd + 1;
+            if (!sizeLine.isEmpty() && sizeLine.charAt(0) != '%') break;
+        }
+        String[] dims = sizeLine.split("\\s+");
+        if (dims.length < 3) {
+            throw new IOException(file + ": malformed size line '" + sizeLine + "'");
+        }
+        int rows = Integer.parseInt(dims[0]);
+        int cols = Integer.parseInt(dims[1]);
+        long entries = Long.parseLong(dims[2]);
+        if (rows <= 0 || cols <= 0 || entries < 0) {
+            throw new IOException(file + ": invalid size line '" + sizeLine + "'");
+        }
+        int n = Math.max(rows, cols);
+
+        int dataStart = Math.min(pos, limit);
+        int chunks = (int) Math.max(1, Math.min(4L * Math.max(1, parallelism), (limit - dataStart) / MIN_CHUNK_BYTES));
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = dataStart;
+        bounds[chunks] = limit;
+        for (int c = 1; c < chunks; c++) {
+            int p = dataStart + (int) ((long) (limit - dataStart) * c / chunks);
+            bounds[c] = Math.min(limit, lineEnd(buf, Math.max(p, bounds[c - 1]), limit) + 1);
+        }
+
+        CooMatrixBuilder[] parts = new CooMatrixBuilder[chunks];
+        long[] lines = new long[chunks];
+        int perChunk = (int) Math.min(Integer.MAX_VALUE - 8, (mirror ? 2 : 1) * entries / chunks + 16);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            CooMatrixBuilder coo = new CooMatrixBuilder(n, perChunk);
+            Cursor cur = new Cursor(buf.duplicate(), bounds[c], bounds[c + 1]);
+            while (cur.skipBlankAndComments()) {
+                int i = (int) cur.nextLong() - 1;
+                int j = (int) cur.nextLong() - 1;
+                double v = pattern ? 1.0 : cur.nextDouble();
+                cur.skipLine();
+                lines[c]++;
+                coo.add(i, j, v);
+                if (mirror && i != j) {
+                    coo.add(j, i, mirrorSign * v);
+                }
+            }
+            parts[c] = coo;
+        });
+
+        // Counted before mirroring, so a truncated file cannot pass as a smaller matrix.
+        long read = 0;
+        for (long l : lines) read += l;
+        if (read != entries) {
+            throw new IOException(file + ": size line declares " + entries + " entries, found " + read);
+        }
+
+        long total = 0;
+        for (CooMatrixBuilder part : parts) total += part.size();
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IOException(file + " expands to " + total + " entries, more than CSR can index");
+        }
+        CooMatrixBuilder all = new CooMatrixBuilder(n, (int) total);
+        for (int c = 0; c < chunks; c++) {
+            all.addAll(parts[c]);
+            parts[c] = null;
+        }
+        return all.build();
+    }
+
+    private static int lineEnd(MappedByteBuffer buf, int from, int limit) {
+        int p = from;
+        while (p < limit && buf.get(p) != '\n') p++;
+        return p;
+    }
+
+    private static String ascii(MappedByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // Minimal tokenizer over [pos, end) of the mapped file; numbers are parsed without Strings
+    // except for doubles, which go through Double.parseDouble for exact rounding.
+    private static final class Cursor {
+        private final ByteBuffer buf;
+        private int pos;
+        private final int end;
+        private final StringBuilder token = new StringBuilder(32);
+
+        Cursor(ByteBuffer buf, int pos, int end) {
+            this.buf = buf;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        boolean skipBlankAndComments() {
+            while (pos < end) {
+                byte b = buf.get(pos);
+                if (b == '%') {
+                    skipLine();
+                } else if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                    pos++;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void skipLine() {
+            while (pos < end && buf.get(pos) != '\n') pos++;
+            pos++;
+        }
+
+        private void skipSpaces() {
+            while (pos < end && (buf.get(pos) == ' ' || buf.get(pos) == '\t')) pos++;
+        }
+
+        long nextLong() {
+            skipSpaces();
+            long v = 0;
+            boolean negative = pos < end && buf.get(pos) == '-';
+            if (negative) pos++;
+            while (pos < end) {
+                byte b = buf.get(pos);
+                if (b < '0' || b > '9') break;
+                v = v * 10 + (b - '0');
+                pos++;
+            }
+            return negative ? -v : v;
+        }
+
+        double nextDouble() {
+            skipSpaces();
+            token.setLength(0);
+            while (pos < end) {
+                byte b = buf.get(pos);
+                if (b == ' ' || b == '\t' || b == '\r' || b == '\n') break;
+                token.append((char) b);
+                pos++;
+            }
+            return Double.parseDouble(token.toString());
+        }
+    }
+}
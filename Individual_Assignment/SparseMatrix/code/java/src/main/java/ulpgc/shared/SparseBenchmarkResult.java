@@ -0,0 +1,29 @@
+package ulpgc.shared;
+
+public class SparseBenchmarkResult {
+    private final int n;
+    private final int nnzPerRow;
+    private final int nnzA;
+    private final int nnzB;
+    private final int nnzC;
+    private final double timeGenerate;
+    private final double timeCooBuild;
+    private final double timeSpgemm;
+
+    public SparseBenchmarkResult(int n, int nnzPerRow, int nnzA, int nnzB, int nnzC,
+                                 double timeGenerate, double timeCooBuild, double timeSpgemm) {
+        this.n = n;
+        this.nnzPerRow = nnzPerRow;
+        this.nnzA = nnzA;
+        this.nnzB = nnzB;
+        this.nnzC = nnzC;
+        this.timeGenerate = timeGenerate;
+        this.timeCooBuild = timeCooBuild;
+        this.timeSpgemm = timeSpgemm;
+    }
+
+    public String toCsvLine() {
+        return String.format("%d,%d,%d,%d,%d,%.6f,%.6f,%.6f",
+                n, nnzPerRow, nnzA, nnzB, nnzC, timeGenerate, timeCooBuild, timeSpgemm);
+    }
+}
@@ -0,0 +1,111 @@
+package ulpgc.shared;
+
+import java.util.Arrays;
+
+/**
+ * Inspects a CSR matrix and recommends a storage format for row-oriented products
+ * (multiplyDense / multiplyVector):
+ * - CSR for an empty matrix,
+ * - BSR when R x R blocks are at least BSR_MIN_FILL full,
+ * - SELL-C-sigma when sorting/padding costs at most SELL_MAX_PADDING extra entries and the
+ *   row-length coefficient of variation is at most SELL_MAX_ROW_CV; above that the lengths
+ *   are heavy-tailed and the few long rows make chunk work uneven even when padding is low,
+ * - CSR otherwise.
+ * CSC is never recommended here; it is the layout for column-oriented access (A^T x, column
+ * slicing) and is available through convert().
+ */
+public class SparseFormatAnalyzer {
+    public enum Format { CSR, CSC, SELL, BSR }
+
+    public static final int SELL_CHUNK = 8;
+    public static final int SELL_SIGMA = 256;
+    public static final int BSR_BLOCK = 4;
+    public static final double BSR_MIN_FILL = 0.5;
+    public static final double SELL_MAX_PADDING = 1.2;
+    public static final double SELL_MAX_ROW_CV = 1.0;
+
+    public record Profile(double rowMean, double rowCv, int maxRowLength, double sellPadding, double blockFill) {
+    }
+
+    public static Profile analyze(SparseMatrixCSR A) {
+        int n = A.n;
+        int[] lengths = new int[n];
+        double sum = 0.0, sumSq = 0.0;
+        int max = 0;
+        for (int i = 0; i < n; i++) {
+            lengths[i] = A.rowPtr[i + 1] - A.rowPtr[i];
+            sum += lengths[i];
+            sumSq += (double) lengths[i] * lengths[i];
+            max = Math.max(max, lengths[i]);
+        }
+        double mean = n == 0 ? 0.0 : sum / n;
+        double variance = n == 0 ? 0.0 : Math.max(0.0, sumSq / n - mean * mean);
+        double cv = mean == 0.0 ? 0.0 : Math.sqrt(variance) / mean;
+        return new Profile(mean, cv, max, sellPadding(lengths), blockFill(A, BSR_BLOCK));
+    }
+
+    public static Format recommend(SparseMatrixCSR A) {
+        return recommend(analyze(A));
+    }
+
+    public static Format recommend(Profile p) {
+        if (p.rowMean() == 0.0) return Format.CSR;
+        if (p.blockFill() >= BSR_MIN_FILL) return Format.BSR;
+        if (p.sellPadding() <= SELL_MAX_PADDING && p.rowCv() <= SELL_MAX_ROW_CV) return Format.SELL;
+        return Format.CSR;
+    }
+
+    public static SparseMatrix convert(SparseMatrixCSR A, Format format) {
+        return switch (format) {
+            case CSR -> A;
+            case CSC -> SparseMatrixCSC.fromCsr(A);
+            case SELL -> SparseMatrixSELL.fromCsr(A, SELL_CHUNK, SELL_SIGMA);
+            case BSR -> SparseMatrixBSR.fromCsr(A, BSR_BLOCK);
+        };
+    }
+
+    // Same sort-within-window and chunk padding as SparseMatrixSELL.fromCsr, on row lengths only.
+    private static double sellPadding(int[] lengths) {
+        int n = lengths.length;
+        long stored = 0, nnz = 0;
+        int[] sorted = lengths.clone();
+        for (int w0 = 0; w0 < n; w0 += SELL_SIGMA) {
+            int w1 = Math.min(w0 + SELL_SIGMA, n);
+            Arrays.sort(sorted, w0, w1);
+            for (int i = w0, j = w1 - 1; i < j; i++, j--) {
+                int t = sorted[i];
+                sorted[i] = sorted[j];
+                sorted[j] = t;
+            }
+        }
+        for (int c0 = 0; c0 < n; c0 += SELL_CHUNK) {
+            int longest = 0;
+            for (int i = c0; i < Math.min(c0 + SELL_CHUNK, n); i++) {
+                longest = Math.max(longest, sorted[i]);
+                nnz += sorted[i];
+            }
+            stored += (long) longest * SELL_CHUNK;
+        }
+        return nnz == 0 ? 1.0 : stored / (double) nnz;
+    }
+
+    // nnz / (occupied R x R blocks * R * R), counted without building the BSR arrays.
+    private static double blockFill(SparseMatrixCSR A, int R) {
+        int nb = (A.n + R - 1) / R;
+        int[] seen = new int[nb];
+        Arrays.fill(seen, -1);
+        long blocks = 0;
+        for (int I = 0; I < nb; I++) {
+            for (int i = I * R; i < Math.min(A.n, (I + 1) * R); i++) {
+                for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                    int J = A.colIdx[k] / R;
+                    if (seen[J] != I) {
+                        seen[J] = I;
+                        blocks++;
+                    }
+                }
+            }
+        }
+        return blocks == 0 ? 0.0 : A.nnz / (double) (blocks * R * R);
+    }
+}
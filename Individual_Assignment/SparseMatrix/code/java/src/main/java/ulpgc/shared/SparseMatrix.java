@@ -0,0 +1,19 @@
+package ulpgc.shared;
+
+/**
+ * Square sparse matrix in some storage format. Conversions start from SparseMatrixCSR, which
+ * stays the interchange format (see SparseFormatAnalyzer.convert).
+ */
+public interface SparseMatrix {
+    int size();
+
+    int nnz();
+
+    String formatName();
+
+    // C = this * B for a dense n x m operand.
+    double[][] multiplyDense(double[][] B);
+
+    // y = this * x
+    double[] multiplyVector(double[] x);
+}
@@ -0,0 +1,182 @@
+package ulpgc.shared;
+
+import java.util.Arrays;
+
+/**
+ * Block sparse row: the matrix is cut into R x R blocks and every block holding at least one
+ * nonzero is stored densely (row-major inside the block). Worth it when nonzeros cluster, since
+ * one column index then covers R * R values and the inner loops have a fixed trip count.
+ * Blocks on the bottom/right edge are zero-padded when n is not a multiple of R.
+ */
+public class SparseMatrixBSR implements SparseMatrix {
+    public final int n;
+    public final int nnz;
+    public final int blockSize;
+    public final int[] blockRowPtr;
+    public final int[] blockColIdx;
+    public final double[] val;
+
+    private SparseMatrixBSR(int n, int nnz, int blockSize, int[] blockRowPtr, int[] blockColIdx, double[] val) {
+        this.n = n;
+        this.nnz = nnz;
+        this.blockSize = blockSize;
+        this.blockRowPtr = blockRowPtr;
+        this.blockColIdx = blockColIdx;
+        this.val = val;
+    }
+
+    public static SparseMatrixBSR fromCsr(SparseMatrixCSR A, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        int R = blockSize;
+        int nb = (A.n + R - 1) / R;
+        int[] blockRowPtr = new int[nb + 1];
+        int[] slot = new int[nb];
+        Arrays.fill(slot, -1);
+
+        // Pass 1: distinct block columns per block row (slot[] marks the block row that last saw a column).
+        for (int I = 0; I < nb; I++) {
+            int count = 0;
+            for (int i = I * R; i < Math.min(A.n, (I + 1) * R); i++) {
+                for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                    int J = A.colIdx[k] / R;
+                    if (slot[J] != I) {
+                        slot[J] = I;
+                        count++;
+                    }
+                }
+            }
+            blockRowPtr[I + 1] = blockRowPtr[I] + count;
+        }
+
+        int[] blockColIdx = new int[blockRowPtr[nb]];
+        double[] val = new double[blockRowPtr[nb] * R * R];
+        int[] position = new int[nb];
+        Arrays.fill(slot, -1);
+        for (int I = 0; I < nb; I++) {
+            int start = blockRowPtr[I];
+            int count = 0;
+            for (int i = I * R; i < Math.min(A.n, (I + 1) * R); i++) {
+                for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                    int J = A.colIdx[k] / R;
+                    if (slot[J] != I) {
+                        slot[J] = I;
+                        blockColIdx[start + count++] = J;
+                    }
+                }
+            }
+            Arrays.sort(blockColIdx, start, start + count);
+            for (int b = start; b < start + count; b++) {
+                position[blockColIdx[b]] = b;
+            }
+            for (int i = I * R; i < Math.min(A.n, (I + 1) * R); i++) {
+                for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                    int j = A.colIdx[k];
+                    int b = position[j / R];
+                    val[b * R * R + (i - I * R) * R + (j % R)] = A.val[k];
+                }
+            }
+        }
+        return new SparseMatrixBSR(A.n, A.nnz, R, blockRowPtr, blockColIdx, val);
+    }
+
+    // Fraction of stored block entries that are real nonzeros.
+    public double blockFill() {
+        return val.length == 0 ? 1.0 : nnz / (double) val.length;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int nnz() {
+        return nnz;
+    }
+
+    @Override
+    public String formatName() {
+        return "BSR-" + blockSize;
+    }
+
+    @Override
+    public double[][] multiplyDense(double[][] B) {
+        int R = blockSize;
+        int m = B.length == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
+        for (int I = 0; I < blockRowPtr.length - 1; I++) {
+            int rows = Math.min(R, n - I * R);
+            for (int b = blockRowPtr[I]; b < blockRowPtr[I + 1]; b++) {
+                int J = blockColIdx[b];
+                int cols = Math.min(R, n - J * R);
+                int base = b * R * R;
+                if (R == 4 && rows == 4 && cols == 4) {
+                    multiplyBlock4(base, B, J * 4, C, I * 4, m);
+                    continue;
+                }
+                for (int r = 0; r < rows; r++) {
+                    double[] Crow = C[I * R + r];
+                    for (int c = 0; c < cols; c++) {
+                        double a = val[base + r * R + c];
+                        if (a == 0.0) continue;
+                        double[] Brow = B[J * R + c];
+                        for (int q = 0; q < m; q++) {
+                            Crow[q] += a * Brow[q];
+                        }
+                    }
+                }
+            }
+        }
+        return C;
+    }
+
+    // Full 4 x 4 block: each row of B is loaded once and applied to all four rows of C.
+    private void multiplyBlock4(int base, double[][] B, int j0, double[][] C, int i0, int m) {
+        double[] C0 = C[i0], C1 = C[i0 + 1], C2 = C[i0 + 2], C3 = C[i0 + 3];
+        for (int c = 0; c < 4; c++) {
+            double a0 = val[base + c], a1 = val[base + 4 + c], a2 = val[base + 8 + c], a3 = val[base + 12 + c];
+            double[] Brow = B[j0 + c];
+            for (int q = 0; q < m; q++) {
+                double bq = Brow[q];
+                C0[q] += a0 * bq;
+                C1[q] += a1 * bq;
+                C2[q] += a2 * bq;
+                C3[q] += a3 * bq;
+            }
+        }
+    }
+
+    @Override
+    public double[] multiplyVector(double[] x) {
+        int R = blockSize;
+        double[] y = new double[n];
+        for (int I = 0; I < blockRowPtr.length - 1; I++) {
+            int rows = Math.min(R, n - I * R);
+            for (int b = blockRowPtr[I]; b < blockRowPtr[I + 1]; b++) {
+                int J = blockColIdx[b];
+                int cols = Math.min(R, n - J * R);
+                int base = b * R * R;
+                if (R == 4 && rows == 4 && cols == 4) {
+                    int j = J * 4;
+                    double x0 = x[j], x1 = x[j + 1], x2 = x[j + 2], x3 = x[j + 3];
+                    int i = I * 4;
+                    y[i] += val[base] * x0 + val[base + 1] * x1 + val[base + 2] * x2 + val[base + 3] * x3;
+                    y[i + 1] += val[base + 4] * x0 + val[base + 5] * x1 + val[base + 6] * x2 + val[base + 7] * x3;
+                    y[i + 2] += val[base + 8] * x0 + val[base + 9] * x1 + val[base + 10] * x2 + val[base + 11] * x3;
+                    y[i + 3] += val[base + 12] * x0 + val[base + 13] * x1 + val[base + 14] * x2 + val[base + 15] * x3;
+                    continue;
+                }
+                for (int r = 0; r < rows; r++) {
+                    double sum = 0.0;
+                    for (int c = 0; c < cols; c++) {
+                        sum += val[base + r * R + c] * x[J * R + c];
+                    }
+                    y[I * R + r] += sum;
+                }
+            }
+        }
+        return y;
+    }
+}
@@ -0,0 +1,87 @@
+package ulpgc.shared;
+
+import java.util.Arrays;
+
+public class SparseMatrixCSC implements SparseMatrix {
+    public final int n;
+    public final int nnz;
+    public final double[] val;
+    public final int[] rowIdx;
+    public final int[] colPtr;
+
+    public SparseMatrixCSC(int n, int nnz, double[] val, int[] rowIdx, int[] colPtr) {
+        this.n = n;
+        this.nnz = nnz;
+        this.val = val;
+        this.rowIdx = rowIdx;
+        this.colPtr = colPtr;
+    }
+
+    // Counting-sort transpose of the CSR arrays; row indices come out sorted within each column.
+    public static SparseMatrixCSC fromCsr(SparseMatrixCSR A) {
+        int n = A.n;
+        int[] colPtr = new int[n + 1];
+        for (int k = 0; k < A.nnz; k++) {
+            colPtr[A.colIdx[k] + 1]++;
+        }
+        for (int j = 0; j < n; j++) {
+            colPtr[j + 1] += colPtr[j];
+        }
+        int[] next = Arrays.copyOf(colPtr, n);
+        int[] rowIdx = new int[A.nnz];
+        double[] val = new double[A.nnz];
+        for (int i = 0; i < n; i++) {
+            for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                int pos = next[A.colIdx[k]]++;
+                rowIdx[pos] = i;
+                val[pos] = A.val[k];
+            }
+        }
+        return new SparseMatrixCSC(n, A.nnz, val, rowIdx, colPtr);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int nnz() {
+        return nnz;
+    }
+
+    @Override
+    public String formatName() {
+        return "CSC";
+    }
+
+    // Column k of this matrix scales row k of B into the rows it touches.
+    @Override
+    public double[][] multiplyDense(double[][] B) {
+        int m = B.length == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
+        for (int k = 0; k < n; k++) {
+            double[] Brow = B[k];
+            for (int p = colPtr[k]; p < colPtr[k + 1]; p++) {
+                double a = val[p];
+                double[] Crow = C[rowIdx[p]];
+                for (int j = 0; j < m; j++) {
+                    Crow[j] += a * Brow[j];
+                }
+            }
+        }
+        return C;
+    }
+
+    @Override
+    public double[] multiplyVector(double[] x) {
+        double[] y = new double[n];
+        for (int k = 0; k < n; k++) {
+            double xk = x[k];
+            for (int p = colPtr[k]; p < colPtr[k + 1]; p++) {
+                y[rowIdx[p]] += val[p] * xk;
+            }
+        }
+        return y;
+    }
+}
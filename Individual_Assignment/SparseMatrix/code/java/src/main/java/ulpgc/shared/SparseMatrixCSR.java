@@ -1,6 +1,14 @@
 package ulpgc.shared;
 
-public class SparseMatrixCSR {
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+public class SparseMatrixCSR implements SparseMatrix {
     public final int n;
     public final int nnz;
     public final double[] val;
@@ -48,9 +56,62 @@ public class SparseMatrixCSR {
         return new SparseMatrixCSR(n, nnzCounter, val, colIdx, rowPtr);
     }
 
+    /**
+     * Same distribution as DenseMatrix.randomDenseMatrix (each cell is nonzero with probability
+     * density, values uniform in [0, 1)) but only the nonzeros are generated: the gap to the next
+     * nonzero is drawn from a geometric distribution, so the cost is O(n + nnz).
+     */
+    public static SparseMatrixCSR randomSparse(Random rng, int n, double density) {
+        int[] rowPtr = new int[n + 1];
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, (long) (density * n * (double) n * 1.05) + 16));
+        int[] colIdx = new int[capacity];
+        double[] val = new double[capacity];
+        double logSkip = density < 1.0 ? Math.log1p(-density) : 0.0;
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            rowPtr[i] = count;
+            if (density <= 0.0) continue;
+            long j = density < 1.0 ? (long) (Math.log(1.0 - rng.nextDouble()) / logSkip) : 0;
+            while (j < n) {
+                if (count == colIdx.length) {
+                    int grown = (int) Math.min(Integer.MAX_VALUE - 8, (long) count + (count >> 1) + 16);
+                    colIdx = Arrays.copyOf(colIdx, grown);
+                    val = Arrays.copyOf(val, grown);
+                }
+                colIdx[count] = (int) j;
+                val[count] = rng.nextDouble();
+                count++;
+                j += 1 + (density < 1.0 ? (long) (Math.log(1.0 - rng.nextDouble()) / logSkip) : 0);
+            }
+        }
+        rowPtr[n] = count;
+        if (count < colIdx.length) {
+            colIdx = Arrays.copyOf(colIdx, count);
+            val = Arrays.copyOf(val, count);
+        }
+        return new SparseMatrixCSR(n, count, val, colIdx, rowPtr);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int nnz() {
+        return nnz;
+    }
+
+    @Override
+    public String formatName() {
+        return "CSR";
+    }
+
+    @Override
     public double[][] multiplyDense(double[][] B) {
         int n = this.n;
-        double[][] C = new double[n][n];
+        int m = B.length == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
         for (int i = 0; i < n; i++) {
             int rowStart = rowPtr[i];
             int rowEnd = rowPtr[i + 1];
@@ -59,11 +120,378 @@ public class SparseMatrixCSR {
                 int colA = colIdx[k];
                 double a = val[k];
                 double[] Brow = B[colA];
-                for (int j = 0; j < n; j++) {
+                for (int j = 0; j < m; j++) {
                     Crow[j] += a * Brow[j];
                 }
             }
         }
         return C;
     }
+
+    @Override
+    public double[] multiplyVector(double[] x) {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = 0.0;
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                sum += val[k] * x[colIdx[k]];
+            }
+            y[i] = sum;
+        }
+        return y;
+    }
+
+    public double[][] multiplyDenseParallel(double[][] B) {
+        return multiplyDenseParallel(B, defaultParts(), false);
+    }
+
+    /**
+     * Parallel C = this * B. Work is split into {@code parts} tasks holding the same number of
+     * nonzeros (boundaries found by binary search on rowPtr), so a few long rows do not leave the
+     * other tasks idle. With {@code mergePath} the split runs along the merged sequence of row ends
+     * and nonzeros, which may cut inside a row; such partial rows go to per-task carry buffers that
+     * are added to C after all tasks finish.
+     */
+    public double[][] multiplyDenseParallel(double[][] B, int parts, boolean mergePath) {
+        int m = B.length == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
+        RangeKernel kernel = (lo, hi, out, outOff) -> {
+            for (int k = lo; k < hi; k++) {
+                double a = val[k];
+                double[] Brow = B[colIdx[k]];
+                for (int j = 0; j < m; j++) {
+                    out[outOff + j] += a * Brow[j];
+                }
+            }
+        };
+        runParallel(parts, mergePath, m, kernel, r -> C[r], r -> 0);
+        return C;
+    }
+
+    public double[] multiplyDenseParallel(double[] B, int m) {
+        return multiplyDenseParallel(B, m, defaultParts(), false);
+    }
+
+    /** Same as the double[][] variant for a flat row-major n x m operand; returns a flat n x m result. */
+    public double[] multiplyDenseParallel(double[] B, int m, int parts, boolean mergePath) {
+        long size = (long) n * m;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(n + " x " + m + " does not fit a single array");
+        }
+        if (B.length != size) {
+            throw new IllegalArgumentException("B must hold " + n + " x " + m + " values");
+        }
+        double[] C = new double[(int) size];
+        RangeKernel kernel = (lo, hi, out, outOff) -> {
+            for (int k = lo; k < hi; k++) {
+                double a = val[k];
+                int baseBk = colIdx[k] * m;
+                for (int j = 0; j < m; j++) {
+                    out[outOff + j] += a * B[baseBk + j];
+                }
+            }
+        };
+        runParallel(parts, mergePath, m, kernel, r -> C, r -> r * m);
+        return C;
+    }
+
+    /**
+     * Gustavson SpGEMM: C = this * B with both operands and the result in CSR. A symbolic pass
+     * counts the distinct columns of each output row so the result arrays are allocated exactly,
+     * then a numeric pass fills them with columns sorted inside each row. Rows whose product
+     * touches few columns use a small open-addressing table, the rest a dense accumulator of
+     * length n; both are kept per worker thread and reused. Rows are split into tasks with equal
+     * multiply-add counts.
+     */
+    public SparseMatrixCSR multiplySparse(SparseMatrixCSR B) {
+        return multiplySparse(B, defaultParts());
+    }
+
+    public SparseMatrixCSR multiplySparse(SparseMatrixCSR B, int parts) {
+        if (B.n != n) {
+            throw new IllegalArgumentException("B is " + B.n + " x " + B.n + ", expected " + n + " x " + n);
+        }
+        long[] flopPrefix = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            long f = 0;
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                int c = colIdx[k];
+                f += B.rowPtr[c + 1] - B.rowPtr[c];
+            }
+            flopPrefix[i + 1] = flopPrefix[i] + f;
+        }
+        int tasks = Math.max(1, parts);
+        int[] split = new int[tasks + 1];
+        for (int t = 0; t <= tasks; t++) {
+            long target = flopPrefix[n] * t / tasks;
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (flopPrefix[mid] < target) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            split[t] = lo;
+        }
+
+        int[] cRowPtr = new int[n + 1];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            SpgemmWorkspace ws = SpgemmWorkspace.LOCAL.get();
+            for (int i = split[t]; i < split[t + 1]; i++) {
+                cRowPtr[i + 1] = ws.symbolic(this, B, i, flopPrefix[i + 1] - flopPrefix[i]);
+            }
+        });
+        for (int i = 0; i < n; i++) {
+            cRowPtr[i + 1] += cRowPtr[i];
+        }
+
+        int cNnz = cRowPtr[n];
+        int[] cCol = new int[cNnz];
+        double[] cVal = new double[cNnz];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            SpgemmWorkspace ws = SpgemmWorkspace.LOCAL.get();
+            for (int i = split[t]; i < split[t + 1]; i++) {
+                ws.numeric(this, B, i, flopPrefix[i + 1] - flopPrefix[i], cCol, cVal, cRowPtr[i]);
+            }
+        });
+        return new SparseMatrixCSR(n, cNnz, cVal, cCol, cRowPtr);
+    }
+
+    public double[][] toDense() {
+        double[][] D = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                D[i][colIdx[k]] = val[k];
+            }
+        }
+        return D;
+    }
+
+    /*
+     * Per-worker accumulators for multiplySparse, reused across tasks, passes and calls. The
+     * dense arrays are only allocated (and grown to n) when a row takes the dense path: the
+     * symbolic pass needs just the stamped marker, the hash path none of them. The marker uses row
+     * stamps so it is never cleared between rows.
+     */
+    private static final class SpgemmWorkspace {
+        static final ThreadLocal<SpgemmWorkspace> LOCAL = ThreadLocal.withInitial(SpgemmWorkspace::new);
+
+        // Rows with fewer candidate products than n / HASH_RATIO use the hash accumulator.
+        private static final int HASH_RATIO = 16;
+
+        private int[] mark = new int[0];
+        private double[] dense = new double[0];
+        private int[] touched = new int[0];
+        private int[] hashKeys = new int[16];
+        private double[] hashVals = new double[16];
+        private int hashShift;
+        private int stamp = 0;
+
+        // Returns a fresh stamp for a row over n columns, growing or resetting the marker as needed.
+        private int nextStamp(int n) {
+            if (mark.length < n || stamp == Integer.MAX_VALUE) {
+                mark = new int[Math.max(n, mark.length)];
+                Arrays.fill(mark, -1);
+                stamp = 0;
+            }
+            return stamp++;
+        }
+
+        private void ensureDense(int n) {
+            if (dense.length < n) {
+                dense = new double[n];
+                touched = new int[n];
+            }
+        }
+
+        int symbolic(SparseMatrixCSR A, SparseMatrixCSR B, int i, long flops) {
+            if (flops < A.n / HASH_RATIO) {
+                int size = resetHash(flops);
+                int count = 0;
+                for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                    int a = A.colIdx[k];
+                    for (int p = B.rowPtr[a]; p < B.rowPtr[a + 1]; p++) {
+                        int slot = probe(B.colIdx[p], size);
+                        if (hashKeys[slot] < 0) {
+                            hashKeys[slot] = B.colIdx[p];
+                            count++;
+                        }
+                    }
+                }
+                return count;
+            }
+            int s = nextStamp(A.n);
+            int count = 0;
+            for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                int a = A.colIdx[k];
+                for (int p = B.rowPtr[a]; p < B.rowPtr[a + 1]; p++) {
+                    int j = B.colIdx[p];
+                    if (mark[j] != s) {
+                        mark[j] = s;
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        void numeric(SparseMatrixCSR A, SparseMatrixCSR B, int i, long flops,
+                     int[] outCol, double[] outVal, int outStart) {
+            int count = 0;
+            if (flops < A.n / HASH_RATIO) {
+                int size = resetHash(flops);
+                for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                    int a = A.colIdx[k];
+                    double av = A.val[k];
+                    for (int p = B.rowPtr[a]; p < B.rowPtr[a + 1]; p++) {
+                        int slot = probe(B.colIdx[p], size);
+                        if (hashKeys[slot] < 0) {
+                            hashKeys[slot] = B.colIdx[p];
+                            hashVals[slot] = 0.0;
+                            outCol[outStart + count++] = B.colIdx[p];
+                        }
+                        hashVals[slot] += av * B.val[p];
+                    }
+                }
+                Arrays.sort(outCol, outStart, outStart + count);
+                for (int q = outStart; q < outStart + count; q++) {
+                    outVal[q] = hashVals[probe(outCol[q], size)];
+                }
+                return;
+            }
+            int s = nextStamp(A.n);
+            ensureDense(A.n);
+            for (int k = A.rowPtr[i]; k < A.rowPtr[i + 1]; k++) {
+                int a = A.colIdx[k];
+                double av = A.val[k];
+                for (int p = B.rowPtr[a]; p < B.rowPtr[a + 1]; p++) {
+                    int j = B.colIdx[p];
+                    if (mark[j] != s) {
+                        mark[j] = s;
+                        dense[j] = 0.0;
+                        touched[count++] = j;
+                    }
+                    dense[j] += av * B.val[p];
+                }
+            }
+            Arrays.sort(touched, 0, count);
+            for (int q = 0; q < count; q++) {
+                outCol[outStart + q] = touched[q];
+                outVal[outStart + q] = dense[touched[q]];
+            }
+        }
+
+        // Clears a power-of-two table of at least twice the candidate count and returns its size.
+        private int resetHash(long flops) {
+            int size = Integer.highestOneBit((int) Math.max(8, 2 * flops - 1)) << 1;
+            if (hashKeys.length < size) {
+                hashKeys = new int[size];
+                hashVals = new double[size];
+            }
+            Arrays.fill(hashKeys, 0, size, -1);
+            hashShift = 32 - Integer.numberOfTrailingZeros(size);
+            return size;
+        }
+
+        // Fibonacci hashing: the high bits of the product are the well-mixed ones.
+        private int probe(int key, int size) {
+            int slot = (key * 0x9E3779B1) >>> hashShift;
+            while (hashKeys[slot] >= 0 && hashKeys[slot] != key) {
+                slot = (slot + 1) & (size - 1);
+            }
+            return slot;
+        }
+    }
+
+    private interface RangeKernel {
+        // out[outOff + j] += sum over k in [lo, hi) of val[k] * B[colIdx[k]][j]
+        void accumulate(int lo, int hi, double[] out, int outOff);
+    }
+
+    private static int defaultParts() {
+        return 4 * Runtime.getRuntime().availableProcessors();
+    }
+
+    private void runParallel(int parts, boolean mergePath, int m, RangeKernel kernel,
+                             IntFunction<double[]> rowArray, IntUnaryOperator rowOffset) {
+        int tasks = Math.max(1, parts);
+        int[] splitRow = new int[tasks + 1];
+        int[] splitNz = new int[tasks + 1];
+        for (int t = 0; t <= tasks; t++) {
+            if (mergePath) {
+                long diag = (long) (n + nnz) * t / tasks;
+                splitRow[t] = mergePathRow((int) diag);
+                splitNz[t] = (int) diag - splitRow[t];
+            } else {
+                splitRow[t] = firstRowAtOrAfter((int) ((long) nnz * t / tasks));
+                splitNz[t] = rowPtr[splitRow[t]];
+            }
+        }
+
+        List<List<Carry>> carries = new ArrayList<>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            carries.add(new ArrayList<>(2));
+        }
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int k0 = splitNz[t];
+            int k1 = splitNz[t + 1];
+            int rEnd = Math.min(splitRow[t + 1], n - 1);
+            for (int r = splitRow[t]; r <= rEnd; r++) {
+                int lo = Math.max(rowPtr[r], k0);
+                int hi = Math.min(rowPtr[r + 1], k1);
+                if (lo >= hi) continue;
+                if (lo == rowPtr[r] && hi == rowPtr[r + 1]) {
+                    kernel.accumulate(lo, hi, rowArray.apply(r), rowOffset.applyAsInt(r));
+                } else {
+                    double[] partial = new double[m];
+                    kernel.accumulate(lo, hi, partial, 0);
+                    carries.get(t).add(new Carry(r, partial));
+                }
+            }
+        });
+
+        for (List<Carry> list : carries) {
+            for (Carry c : list) {
+                double[] out = rowArray.apply(c.row);
+                int off = rowOffset.applyAsInt(c.row);
+                for (int j = 0; j < m; j++) {
+                    out[off + j] += c.values[j];
+                }
+            }
+        }
+    }
+
+    private record Carry(int row, double[] values) {
+    }
+
+    // Smallest row i with rowPtr[i] >= target.
+    private int firstRowAtOrAfter(int target) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rowPtr[mid] < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Row coordinate where diagonal diag crosses the merge path of row ends (rowPtr[1..n]) and nonzeros.
+    private int mergePathRow(int diag) {
+        int lo = Math.max(diag - nnz, 0);
+        int hi = Math.min(diag, n);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rowPtr[mid + 1] <= diag - mid - 1) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
 }
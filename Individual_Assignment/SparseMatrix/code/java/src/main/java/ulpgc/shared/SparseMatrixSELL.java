@@ -0,0 +1,157 @@
+package ulpgc.shared;
+
+import java.util.Arrays;
+
+/**
+ * SELL-C-sigma: rows are sorted by length inside windows of sigma rows, then grouped into chunks
+ * of C rows. Each chunk is padded to its longest row and stored column-major, so one step of the
+ * inner loop touches C independent rows with unit-stride loads of val and colIdx. Padding
+ * entries have value 0 and repeat the row's last column (or column 0 for empty rows).
+ */
+public class SparseMatrixSELL implements SparseMatrix {
+    public final int n;
+    public final int nnz;
+    public final int chunkHeight;
+    public final int sigma;
+    public final int[] chunkPtr;
+    public final int[] chunkLen;
+    public final int[] colIdx;
+    public final double[] val;
+    // perm[slot] = original row stored in that slot; -1 for slots past the last row
+    public final int[] perm;
+
+    private SparseMatrixSELL(int n, int nnz, int chunkHeight, int sigma, int[] chunkPtr, int[] chunkLen,
+                             int[] colIdx, double[] val, int[] perm) {
+        this.n = n;
+        this.nnz = nnz;
+        this.chunkHeight = chunkHeight;
+        this.sigma = sigma;
+        this.chunkPtr = chunkPtr;
+        this.chunkLen = chunkLen;
+        this.colIdx = colIdx;
+        this.val = val;
+        this.perm = perm;
+    }
+
+    public static SparseMatrixSELL fromCsr(SparseMatrixCSR A, int chunkHeight, int sigma) {
+        if (chunkHeight <= 0 || sigma <= 0) {
+            throw new IllegalArgumentException("chunkHeight and sigma must be positive");
+        }
+        int n = A.n;
+        int chunks = (n + chunkHeight - 1) / chunkHeight;
+        int[] perm = new int[chunks * chunkHeight];
+        Arrays.fill(perm, -1);
+        Integer[] window = new Integer[Math.min(sigma, Math.max(n, 1))];
+        for (int w0 = 0; w0 < n; w0 += sigma) {
+            int w1 = Math.min(w0 + sigma, n);
+            for (int i = w0; i < w1; i++) {
+                window[i - w0] = i;
+            }
+            Arrays.sort(window, 0, w1 - w0, (a, b) -> Integer.compare(rowLength(A, b), rowLength(A, a)));
+            for (int i = w0; i < w1; i++) {
+                perm[i] = window[i - w0];
+            }
+        }
+
+        int[] chunkPtr = new int[chunks + 1];
+        int[] chunkLen = new int[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int len = 0;
+            for (int r = 0; r < chunkHeight; r++) {
+                int row = perm[c * chunkHeight + r];
+                if (row >= 0) len = Math.max(len, rowLength(A, row));
+            }
+            chunkLen[c] = len;
+            chunkPtr[c + 1] = chunkPtr[c] + len * chunkHeight;
+        }
+
+        int[] colIdx = new int[chunkPtr[chunks]];
+        double[] val = new double[chunkPtr[chunks]];
+        for (int c = 0; c < chunks; c++) {
+            for (int r = 0; r < chunkHeight; r++) {
+                int row = perm[c * chunkHeight + r];
+                int start = row >= 0 ? A.rowPtr[row] : 0;
+                int len = row >= 0 ? rowLength(A, row) : 0;
+                int padCol = len > 0 ? A.colIdx[start + len - 1] : 0;
+                for (int j = 0; j < chunkLen[c]; j++) {
+                    int pos = chunkPtr[c] + j * chunkHeight + r;
+                    if (j < len) {
+                        colIdx[pos] = A.colIdx[start + j];
+                        val[pos] = A.val[start + j];
+                    } else {
+                        colIdx[pos] = padCol;
+                    }
+                }
+            }
+        }
+        return new SparseMatrixSELL(n, A.nnz, chunkHeight, sigma, chunkPtr, chunkLen, colIdx, val, perm);
+    }
+
+    private static int rowLength(SparseMatrixCSR A, int row) {
+        return A.rowPtr[row + 1] - A.rowPtr[row];
+    }
+
+    // Stored entries (including padding) per nonzero; 1.0 means no padding.
+    public double paddingRatio() {
+        return nnz == 0 ? 1.0 : val.length / (double) nnz;
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public int nnz() {
+        return nnz;
+    }
+
+    @Override
+    public String formatName() {
+        return "SELL-" + chunkHeight + "-" + sigma;
+    }
+
+    @Override
+    public double[][] multiplyDense(double[][] B) {
+        int m = B.length == 0 ? 0 : B[0].length;
+        double[][] C = new double[n][m];
+        for (int c = 0; c < chunkLen.length; c++) {
+            int base = chunkPtr[c];
+            for (int r = 0; r < chunkHeight; r++) {
+                int row = perm[c * chunkHeight + r];
+                if (row < 0) continue;
+                double[] Crow = C[row];
+                for (int j = 0; j < chunkLen[c]; j++) {
+                    int pos = base + j * chunkHeight + r;
+                    double a = val[pos];
+                    if (a == 0.0) continue;
+                    double[] Brow = B[colIdx[pos]];
+                    for (int q = 0; q < m; q++) {
+                        Crow[q] += a * Brow[q];
+                    }
+                }
+            }
+        }
+        return C;
+    }
+
+    @Override
+    public double[] multiplyVector(double[] x) {
+        double[] y = new double[n];
+        double[] acc = new double[chunkHeight];
+        for (int c = 0; c < chunkLen.length; c++) {
+            Arrays.fill(acc, 0.0);
+            int pos = chunkPtr[c];
+            for (int j = 0; j < chunkLen[c]; j++) {
+                for (int r = 0; r < chunkHeight; r++, pos++) {
+                    acc[r] += val[pos] * x[colIdx[pos]];
+                }
+            }
+            for (int r = 0; r < chunkHeight; r++) {
+                int row = perm[c * chunkHeight + r];
+                if (row >= 0) y[row] = acc[r];
+            }
+        }
+        return y;
+    }
+}